@@ -0,0 +1,78 @@
+#!/bin/sh
+# Median time from launch to the first healthy GET /api/health.
+#
+#   ./gradlew bootJar && scripts/startup-time.sh 5
+#       the boot jar with plain java -jar
+#   docker build -t hangout . && IMAGE=hangout scripts/startup-time.sh 5
+#       the image in its default mode and with FAST_START=true
+#
+# Extra arguments after the run count go to java (jar) or docker run (image).
+set -e
+
+RUNS=${1:-5}
+[ $# -gt 0 ] && shift
+PORT=${PORT:-18080}
+LOG=$(mktemp)
+trap 'rm -f "$LOG"' EXIT
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Polls /api/health until it answers 200; $1 is a command that succeeds while the app is alive
+wait_healthy() {
+    while ! curl -sf -o /dev/null "http://localhost:$PORT/api/health"; do
+        if ! eval "$1"; then
+            cat "$LOG"
+            echo "Application exited before it became healthy" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+}
+
+median() {
+    tr ' ' '\n' | grep . | sort -n | awk '{ a[NR] = $1 } END { print a[int((NR + 1) / 2)] }'
+}
+
+run_jar() {
+    jar=${JAR:-$(ls build/libs/*.jar | grep -v plain | head -n 1)}
+    start=$(now_ms)
+    java "$@" -Dserver.port="$PORT" -Dmanagement.server.port=-1 -jar "$jar" > "$LOG" 2>&1 &
+    pid=$!
+    wait_healthy "kill -0 $pid 2>/dev/null"
+    elapsed=$(( $(now_ms) - start ))
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+}
+
+run_image() {
+    fast=$1
+    shift
+    start=$(now_ms)
+    id=$(docker run -d -p "$PORT:8080" -e FAST_START="$fast" -e MANAGEMENT_PORT=-1 "$@" "$IMAGE")
+    wait_healthy "docker logs $id > $LOG 2>&1; [ \"\$(docker inspect -f '{{.State.Running}}' $id)\" = true ]"
+    elapsed=$(( $(now_ms) - start ))
+    docker rm -f "$id" > /dev/null
+}
+
+measure() {
+    label=$1
+    shift
+    times=""
+    i=1
+    while [ "$i" -le "$RUNS" ]; do
+        "$@"
+        echo "$label run $i: ${elapsed}ms"
+        times="$times $elapsed"
+        i=$((i + 1))
+    done
+    echo "$label median: $(echo "$times" | median)ms over $RUNS runs"
+}
+
+if [ -n "$IMAGE" ]; then
+    measure default run_image false "$@"
+    measure fast-start run_image true "$@"
+else
+    measure jar run_jar "$@"
+fi
@@ -0,0 +1,72 @@
+package com.hangout.benchmark;
+
+import com.hangout.HangoutApplication;
+import com.hangout.model.Event;
+import com.hangout.model.Rsvp;
+import com.hangout.repository.EventRepository;
+import com.hangout.repository.RsvpRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application against a private in-memory H2 database and seeds events for the
+ * benchmarks.
+ */
+final class BenchmarkApplication {
+
+    static final LocalDateTime EVENT_DATE = LocalDateTime.of(2030, 6, 1, 18, 0);
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String databaseName) {
+        return new SpringApplicationBuilder(HangoutApplication.class)
+                .properties(
+                        "server.port=0",
+                        "management.server.port=-1",
+                        "spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    static Event createEvent(ConfigurableApplicationContext context, Event.CarpoolMode mode) {
+        Event event = new Event();
+        event.setTitle("Benchmark event");
+        event.setEventDate(EVENT_DATE);
+        event.setLocation("Benchmark park");
+        event.setCarpoolMode(mode);
+        return context.getBean(EventRepository.class).save(event);
+    }
+
+    /** Saves {@code count} YES RSVPs; every fifth guest drives with four seats. */
+    static void seedRsvps(ConfigurableApplicationContext context, Event event, int count) {
+        RsvpRepository rsvpRepository = context.getBean(RsvpRepository.class);
+        List<Rsvp> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batch.add(rsvp(event, i));
+            if (batch.size() == 1000) {
+                rsvpRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        rsvpRepository.saveAll(batch);
+    }
+
+    static Rsvp rsvp(Event event, int i) {
+        Rsvp rsvp = new Rsvp();
+        rsvp.setEvent(event);
+        rsvp.setGuestName("Guest " + i);
+        rsvp.setGuestEmail("guest" + i + "@example.com");
+        rsvp.setStatus(Rsvp.RsvpStatus.YES);
+        rsvp.setMessage("See you there");
+        rsvp.setArrivalTime(EVENT_DATE.minusMinutes(15L * ((i * 7L) % 16)));
+        rsvp.setIsDriver(i % 5 == 0);
+        rsvp.setSeats(4);
+        return rsvp;
+    }
+}
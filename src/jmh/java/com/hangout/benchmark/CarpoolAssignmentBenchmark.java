@@ -0,0 +1,97 @@
+package com.hangout.benchmark;
+
+import com.hangout.model.Driver;
+import com.hangout.model.Event;
+import com.hangout.model.Rsvp;
+import com.hangout.repository.EventRepository;
+import com.hangout.service.CarpoolService;
+import com.hangout.service.CarpoolStrategy;
+import com.hangout.service.DriverSeatIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carpool assignment at 10, 1k and 50k RSVPs: the full rebuild through CarpoolService and H2,
+ * and the strategy alone on in-memory entities.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CarpoolAssignmentBenchmark {
+
+    @Param({"10", "1000", "50000"})
+    private int rsvps;
+
+    @Param({"GREEDY", "OPTIMAL"})
+    private Event.CarpoolAlgorithm algorithm;
+
+    private ConfigurableApplicationContext context;
+    private CarpoolService carpoolService;
+    private Event event;
+    private CarpoolStrategy strategy;
+    private List<Driver> drivers;
+    private List<Rsvp> passengers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("carpool" + rsvps + algorithm);
+        carpoolService = context.getBean(CarpoolService.class);
+
+        event = BenchmarkApplication.createEvent(context, Event.CarpoolMode.AUTO);
+        event.setCarpoolAlgorithm(algorithm);
+        event = context.getBean(EventRepository.class).save(event);
+        BenchmarkApplication.seedRsvps(context, event, rsvps);
+        strategy = carpoolService.strategyFor(event);
+
+        drivers = new ArrayList<>();
+        passengers = new ArrayList<>();
+        for (int i = 0; i < rsvps; i++) {
+            Rsvp rsvp = BenchmarkApplication.rsvp(event, i);
+            if (Boolean.TRUE.equals(rsvp.getIsDriver())) {
+                Driver driver = new Driver();
+                driver.setId((long) i);
+                driver.setDepartureTime(rsvp.getArrivalTime());
+                driver.setCapacity(rsvp.getSeats());
+                drivers.add(driver);
+            } else {
+                passengers.add(rsvp);
+            }
+        }
+        passengers.sort(Comparator.comparing(Rsvp::getArrivalTime));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void rebuild() {
+        carpoolService.autoAssignCarpools(event);
+    }
+
+    @Benchmark
+    public Map<Rsvp, Driver> assignInMemory() {
+        DriverSeatIndex seats = new DriverSeatIndex();
+        for (Driver driver : drivers) {
+            // The driver takes their own seat
+            seats.add(driver, 1);
+        }
+        return strategy.assign(passengers, seats);
+    }
+}
@@ -0,0 +1,68 @@
+package com.hangout.benchmark;
+
+import com.hangout.controller.DriverController;
+import com.hangout.dto.DriverResponse;
+import com.hangout.model.Event;
+import com.hangout.service.CarpoolService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping in DriverController.getDriversByEvent for an auto-assigned event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DriverMappingBenchmark {
+
+    @Param({"10", "1000"})
+    private int rsvps;
+
+    private ConfigurableApplicationContext context;
+    private DriverController driverController;
+    private TransactionTemplate transactionTemplate;
+    private Long eventId;
+    // No If-None-Match, so every call loads and maps the drivers
+    private final WebRequest request = new ServletWebRequest(new MockHttpServletRequest());
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("drivers" + rsvps);
+        driverController = context.getBean(DriverController.class);
+        // Requests normally run with an open session; stand in for it with a read-only transaction
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(true);
+
+        Event event = BenchmarkApplication.createEvent(context, Event.CarpoolMode.AUTO);
+        BenchmarkApplication.seedRsvps(context, event, rsvps);
+        context.getBean(CarpoolService.class).autoAssignCarpools(event);
+        eventId = event.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<DriverResponse> getDriversByEvent() {
+        return transactionTemplate.execute(status -> driverController.getDriversByEvent(eventId, request).getBody());
+    }
+}
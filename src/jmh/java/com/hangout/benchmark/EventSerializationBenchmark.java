@@ -0,0 +1,61 @@
+package com.hangout.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hangout.model.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of an Event with its RSVPs, using the application's ObjectMapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventSerializationBenchmark {
+
+    @Param({"10", "1000", "50000"})
+    private int rsvps;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private Event event;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("serialization" + rsvps);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        event = new Event();
+        event.setId(1L);
+        event.setTitle("Benchmark event");
+        event.setDescription("Serialized with every RSVP attached");
+        event.setEventDate(BenchmarkApplication.EVENT_DATE);
+        event.setLocation("Benchmark park");
+        event.setCarpoolMode(Event.CarpoolMode.AUTO);
+        for (int i = 0; i < rsvps; i++) {
+            event.getRsvps().add(BenchmarkApplication.rsvp(event, i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] serializeEvent() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(event);
+    }
+}
@@ -2,8 +2,10 @@ package com.hangout;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class HangoutApplication {
     public static void main(String[] args) {
         SpringApplication.run(HangoutApplication.class, args);
@@ -1,5 +1,10 @@
 package com.hangout.config;
 
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,6 +18,13 @@ import java.net.URISyntaxException;
 @Profile("prod")
 public class DatabaseConfig {
 
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    // DATABASE_REPLICA_URL, same format as DATABASE_URL; empty means no replica
+    @Value("${hangout.datasource.replica.url:}")
+    private String replicaUrl;
+
     @Bean
     public DataSource dataSource() {
         String databaseUrl = System.getenv("DATABASE_URL");
@@ -21,6 +33,21 @@ public class DatabaseConfig {
             throw new RuntimeException("DATABASE_URL environment variable is not set");
         }
 
+        HikariDataSource primary = postgres(databaseUrl, "DATABASE_URL", "primary");
+        if (replicaUrl.isEmpty()) {
+            return primary;
+        }
+
+        // Pools behind the router are not seen by Boot's pool metrics binder, so bind them here
+        HikariDataSource replica = postgres(replicaUrl, "DATABASE_REPLICA_URL", "replica");
+        meterRegistry.ifAvailable(registry -> {
+            primary.setMetricRegistry(registry);
+            replica.setMetricRegistry(registry);
+        });
+        return ReadWriteRoutingDataSource.create(primary, replica);
+    }
+
+    private HikariDataSource postgres(String databaseUrl, String variable, String poolName) {
         try {
             URI dbUri = new URI(databaseUrl);
 
@@ -37,16 +64,19 @@ public class DatabaseConfig {
 
             String jdbcUrl = "jdbc:postgresql://" + dbUri.getHost() + ':' + dbUri.getPort() + dbUri.getPath();
 
-            return DataSourceBuilder
+            HikariDataSource dataSource = DataSourceBuilder
                     .create()
+                    .type(HikariDataSource.class)
                     .url(jdbcUrl)
                     .username(username)
                     .password(password)
                     .driverClassName("org.postgresql.Driver")
                     .build();
+            dataSource.setPoolName(poolName);
+            return dataSource;
 
         } catch (URISyntaxException e) {
-            throw new RuntimeException("Invalid DATABASE_URL format", e);
+            throw new RuntimeException("Invalid " + variable + " format", e);
         }
     }
 }
@@ -0,0 +1,125 @@
+package com.hangout.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Read/write routing on a developer machine: the primary comes from spring.datasource.* and the
+ * replica from hangout.datasource.replica.url, each with its own pool.
+ *
+ * <p>The replica is a separate database. Flyway migrates it at startup, and every
+ * hangout.datasource.replica.local-copy-interval-ms the primary's rows are copied over in one
+ * transaction, so reads routed to the replica lag behind writes the way a real replica's do.
+ */
+@Configuration
+@Profile("replica & !prod")
+public class LocalReplicaConfig {
+
+    // Parents before children, so rows can be deleted in reverse and inserted in this order
+    private static final String[] TABLES = {"users", "events", "drivers", "rsvps"};
+
+    @Value("${hangout.datasource.replica.url}")
+    private String replicaUrl;
+
+    @Value("${spring.flyway.locations:classpath:db/migration/{vendor}}")
+    private String[] migrationLocations;
+
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(replicaUrl)
+                .username(properties.determineUsername())
+                .password(properties.determinePassword())
+                .build();
+        replica.setPoolName("replica");
+
+        // Spring's Flyway runs against the routing data source, which only ever migrates the primary
+        String vendor = DatabaseDriver.fromJdbcUrl(replicaUrl).getId();
+        Flyway.configure()
+                .dataSource(replica)
+                .locations(Arrays.stream(migrationLocations)
+                        .map(location -> location.replace("{vendor}", vendor))
+                        .toArray(String[]::new))
+                .load()
+                .migrate();
+
+        meterRegistry.ifAvailable(registry -> {
+            primary.setMetricRegistry(registry);
+            replica.setMetricRegistry(registry);
+        });
+        return ReadWriteRoutingDataSource.create(primary, replica);
+    }
+
+    @Scheduled(initialDelayString = "${hangout.datasource.replica.local-copy-interval-ms:2000}",
+            fixedDelayString = "${hangout.datasource.replica.local-copy-interval-ms:2000}")
+    public void copyToReplica() throws SQLException {
+        try (Connection from = primary.getConnection(); Connection to = replica.getConnection()) {
+            // One snapshot of the primary, applied in one replica transaction: readers of the
+            // replica see the previous copy until this one commits
+            from.setAutoCommit(false);
+            from.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            from.setReadOnly(true);
+            to.setAutoCommit(false);
+            try {
+                try (Statement delete = to.createStatement()) {
+                    for (int i = TABLES.length - 1; i >= 0; i--) {
+                        delete.executeUpdate("DELETE FROM " + TABLES[i]);
+                    }
+                }
+                for (String table : TABLES) {
+                    copyTable(from, to, table);
+                }
+                to.commit();
+            } catch (SQLException e) {
+                to.rollback();
+                throw e;
+            } finally {
+                from.rollback();
+            }
+        }
+    }
+
+    // Both databases run the same migrations, so the columns line up
+    private static void copyTable(Connection from, Connection to, String table) throws SQLException {
+        try (Statement select = from.createStatement();
+             ResultSet rows = select.executeQuery("SELECT * FROM " + table)) {
+            int columns = rows.getMetaData().getColumnCount();
+            String insert = "INSERT INTO " + table + " VALUES (" + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+            try (PreparedStatement statement = to.prepareStatement(insert)) {
+                while (rows.next()) {
+                    for (int column = 1; column <= columns; column++) {
+                        statement.setObject(column, rows.getObject(column));
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.hangout.config;
+
+import com.hangout.service.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Per-client-IP limits on the anonymous write endpoints, applied before Spring Security and before
+ * the body is read, so a flood costs one bucket lookup per request. Per-event limits need the
+ * event id from the body and are checked in the controllers.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitFilter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        RateLimiter.Rule rule = ruleFor(request);
+        if (rule != null) {
+            long waitMillis = rateLimiter.tryAcquire(rule, request.getRemoteAddr());
+            if (waitMillis > 0) {
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(RateLimiter.retryAfterSeconds(waitMillis)));
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.getWriter().write("{\"error\":\"Too many requests, please slow down\"}");
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static RateLimiter.Rule ruleFor(HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod())) {
+            return null;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/auth/")) {
+            return RateLimiter.Rule.AUTH;
+        }
+        if (path.equals("/api/rsvps") || path.startsWith("/api/rsvps/")) {
+            return RateLimiter.Rule.RSVP;
+        }
+        if (path.startsWith("/api/drivers/") && (path.endsWith("/join") || path.endsWith("/leave"))) {
+            return RateLimiter.Rule.CARPOOL;
+        }
+        return null;
+    }
+}
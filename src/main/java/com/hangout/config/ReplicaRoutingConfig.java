@@ -0,0 +1,27 @@
+package com.hangout.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnExpression("!'${hangout.datasource.replica.url:}'.isEmpty()")
+public class ReplicaRoutingConfig {
+
+    @Value("${hangout.datasource.replica.sticky-window:5s}")
+    private Duration stickyWindow;
+
+    @Bean
+    public FilterRegistrationBean<ReplicaStickinessFilter> replicaStickinessFilter() {
+        FilterRegistrationBean<ReplicaStickinessFilter> registration =
+                new FilterRegistrationBean<>(new ReplicaStickinessFilter(stickyWindow));
+        // Ahead of Spring Security, whose user lookups should route the same way
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,64 @@
+package com.hangout.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Decides per request whether reads may go to the replica. Writes (any non-GET request) use the
+ * primary and set a short-lived cookie, so the same browser keeps reading from the primary
+ * until the replica has had time to catch up and sees its own writes.
+ */
+public class ReplicaStickinessFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "hangout-primary-until";
+
+    private final Duration stickyWindow;
+
+    public ReplicaStickinessFilter(Duration stickyWindow) {
+        this.stickyWindow = stickyWindow;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        boolean write = !"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod());
+        if (write) {
+            long until = System.currentTimeMillis() + stickyWindow.toMillis();
+            Cookie cookie = new Cookie(COOKIE, String.valueOf(until));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, stickyWindow.toSeconds()));
+            response.addCookie(cookie);
+        }
+
+        ReadWriteRoutingDataSource.allowReplica(!write && !recentlyWrote(request));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadWriteRoutingDataSource.clear();
+        }
+    }
+
+    private boolean recentlyWrote(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return false;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,32 @@
+package com.hangout.config;
+
+import com.hangout.service.CarpoolRecomputeScheduler;
+import com.hangout.service.EventCounterService;
+import com.hangout.service.EventStreamService;
+import com.hangout.service.PasswordHashingService;
+import com.hangout.service.TokenService;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StartupConfig {
+
+    /**
+     * Beans that stay eager when fast start turns on spring.main.lazy-initialization. The schema
+     * is still migrated and validated, and a bad token secret still fails, before the app reports
+     * healthy; the worker pools are running before the first request needs them, and the
+     * scheduled counter reconciler is registered at all.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter criticalBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                EntityManagerFactory.class,
+                TokenService.class,
+                PasswordHashingService.class,
+                CarpoolRecomputeScheduler.class,
+                EventStreamService.class,
+                EventCounterService.class);
+    }
+}
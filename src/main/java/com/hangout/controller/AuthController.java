@@ -1,12 +1,17 @@
 package com.hangout.controller;
 
 import com.hangout.dto.LoginRequest;
+import com.hangout.dto.RefreshRequest;
 import com.hangout.dto.RegisterRequest;
 import com.hangout.model.User;
 import com.hangout.repository.UserRepository;
+import com.hangout.service.PasswordHashingService;
+import com.hangout.service.TokenService;
+import com.hangout.service.UserIdentityCache;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -14,13 +19,14 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -31,11 +37,17 @@ public class AuthController {
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private UserIdentityCache userIdentityCache;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
 
     @Autowired
     private AuthenticationManager authenticationManager;
 
+    @Autowired
+    private TokenService tokenService;
+
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody RegisterRequest request) {
         if (userRepository.existsByEmail(request.getEmail())) {
@@ -46,11 +58,12 @@ public class AuthController {
         User user = new User();
         user.setEmail(request.getEmail());
         user.setName(request.getName());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHashingService.encode(request.getPassword()));
         user.setCreatedAt(LocalDateTime.now());
         user.setRole("USER");
 
         userRepository.save(user);
+        userIdentityCache.invalidate(user.getEmail());
 
         return ResponseEntity.ok(Map.of(
                 "message", "Registration successful",
@@ -70,6 +83,15 @@ public class AuthController {
                     )
             );
 
+            UserIdentityCache.UserIdentity user = userIdentityCache.findByEmail(auth.getName())
+                    .orElseThrow();
+
+            if (tokenService.isEnabled()) {
+                Map<String, Object> body = tokenResponse(user);
+                body.put("message", "Login successful");
+                return ResponseEntity.ok(body);
+            }
+
             SecurityContextHolder.getContext().setAuthentication(auth);
 
             HttpSession session = httpRequest.getSession(true);
@@ -78,20 +100,36 @@ public class AuthController {
                     SecurityContextHolder.getContext()
             );
 
-            User user = userRepository.findByEmail(request.getEmail())
-                    .orElseThrow();
-
             return ResponseEntity.ok(Map.of(
                     "message", "Login successful",
                     "email", user.getEmail(),
                     "name", user.getName()
             ));
         } catch (AuthenticationException e) {
+            // The hashing pool being full is not a bad password
+            if (e.getCause() instanceof PasswordHashingService.BusyException busy) {
+                throw busy;
+            }
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "Invalid credentials"));
         }
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest request) {
+        if (!tokenService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // Unlike access tokens, a refresh re-reads the user so removed accounts stop getting tokens
+        return Optional.ofNullable(request.getRefreshToken())
+                .flatMap(token -> tokenService.verify(token, TokenService.REFRESH))
+                .flatMap(claims -> userIdentityCache.findByEmail(claims.getSubject()))
+                .<ResponseEntity<?>>map(user -> ResponseEntity.ok(tokenResponse(user)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(Map.of("error", "Invalid refresh token")));
+    }
+
     @GetMapping("/me")
     public ResponseEntity<?> getCurrentUser(Principal principal) {
         if (principal == null) {
@@ -99,7 +137,7 @@ public class AuthController {
                     .body(Map.of("error", "Not authenticated"));
         }
 
-        User user = userRepository.findByEmail(principal.getName())
+        UserIdentityCache.UserIdentity user = userIdentityCache.findByEmail(principal.getName())
                 .orElseThrow();
 
         return ResponseEntity.ok(Map.of(
@@ -108,6 +146,23 @@ public class AuthController {
         ));
     }
 
+    private Map<String, Object> tokenResponse(UserIdentityCache.UserIdentity user) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("email", user.getEmail());
+        body.put("name", user.getName());
+        body.put("accessToken", tokenService.issueAccessToken(user));
+        body.put("refreshToken", tokenService.issueRefreshToken(user));
+        body.put("expiresIn", tokenService.getAccessTtl().toSeconds());
+        return body;
+    }
+
+    @ExceptionHandler(PasswordHashingService.BusyException.class)
+    public ResponseEntity<Map<String, String>> hashingBusy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(passwordHashingService.getRetryAfterSeconds()))
+                .body(Map.of("error", "Too many sign-ins right now, please try again in a moment"));
+    }
+
     @PostMapping("/logout")
     public ResponseEntity<?> logout(HttpServletRequest request) {
         SecurityContextHolder.clearContext();
@@ -1,19 +1,29 @@
 package com.hangout.controller;
 
+import com.hangout.dto.DriverResponse;
 import com.hangout.model.Driver;
-import com.hangout.model.Rsvp;
 import com.hangout.repository.DriverRepository;
 import com.hangout.repository.EventRepository;
 import com.hangout.repository.RsvpRepository;
+import com.hangout.service.CarpoolRecomputeScheduler;
+import com.hangout.service.EventCounterService;
+import com.hangout.service.EventStreamService;
+import com.hangout.service.RateLimiter;
+import com.hangout.service.SeatReservationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.security.Principal;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/drivers")
@@ -29,31 +39,25 @@ public class DriverController {
     @Autowired
     private RsvpRepository rsvpRepository;
 
-    @GetMapping("/event/{eventId}")
-    public List<DriverResponse> getDriversByEvent(@PathVariable Long eventId) {
-        List<Driver> drivers = driverRepository.findByEventIdOrderByDepartureTimeAsc(eventId);
-        return drivers.stream().map(driver -> {
-            DriverResponse response = new DriverResponse();
-            response.setId(driver.getId());
-            response.setDriverName(driver.getDriverName());
-            response.setDriverEmail(driver.getDriverEmail());
-            response.setDepartureTime(driver.getDepartureTime());
-            response.setCapacity(driver.getCapacity());
-            response.setCarDetails(driver.getCarDetails());
-
-            List<PassengerInfo> passengers = driver.getPassengers().stream()
-                .map(rsvp -> {
-                    PassengerInfo info = new PassengerInfo();
-                    info.setName(rsvp.getGuestName());
-                    info.setEmail(rsvp.getGuestEmail());
-                    return info;
-                })
-                .collect(Collectors.toList());
-            response.setPassengers(passengers);
-            response.setSpotsAvailable(driver.getCapacity() - passengers.size());
+    @Autowired
+    private CarpoolRecomputeScheduler carpoolRecomputeScheduler;
 
-            return response;
-        }).collect(Collectors.toList());
+    @Autowired
+    private SeatReservationService seatReservationService;
+
+    @Autowired
+    private EventStreamService eventStreamService;
+
+    @Autowired
+    private EventCounterService eventCounterService;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @GetMapping("/event/{eventId}")
+    public ResponseEntity<List<DriverResponse>> getDriversByEvent(@PathVariable Long eventId, WebRequest request) {
+        return EventETags.conditionalGet(eventRepository, eventId, request,
+                () -> Optional.of(DriverResponse.fromRows(driverRepository.findDriverPassengerRows(eventId))));
     }
 
     @PostMapping
@@ -67,26 +71,60 @@ public class DriverController {
                     driver.setDepartureTime(request.getDepartureTime());
                     driver.setCapacity(request.getCapacity());
                     driver.setCarDetails(request.getCarDetails());
-                    return ResponseEntity.ok(driverRepository.save(driver));
+                    Driver saved = eventCounterService.saveDriver(driver);
+                    eventRepository.bumpDataVersion(event.getId());
+                    publishSeatChange(event.getId(), "created", saved.getId(), null);
+                    return ResponseEntity.ok(saved);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/event/{eventId}/rebuild")
+    public ResponseEntity<Map<String, String>> rebuildCarpools(@PathVariable Long eventId, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        return eventRepository.findById(eventId)
+                .map(event -> {
+                    // Check if user is the organizer
+                    if (event.getOrganizer() != null &&
+                        !event.getOrganizer().getEmail().equals(principal.getName())) {
+                        throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                                "Only event organizer can rebuild carpools");
+                    }
+
+                    carpoolRecomputeScheduler.requestRebuild(event.getId());
+
+                    Map<String, String> success = new HashMap<>();
+                    success.put("message", "Carpool rebuild queued");
+                    return ResponseEntity.accepted().body(success);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping("/{driverId}/join")
     public ResponseEntity<Map<String, String>> joinCar(@PathVariable Long driverId, @RequestBody JoinCarRequest request) {
+        // The event's write budget is checked before the driver is loaded, so a limited request costs one lookup
+        driverRepository.findEventIdById(driverId)
+                .ifPresent(eventId -> rateLimiter.check(RateLimiter.Rule.EVENT_WRITES, eventId));
         return driverRepository.findById(driverId)
                 .map(driver -> {
                     return rsvpRepository.findByEventIdAndGuestEmail(driver.getEvent().getId(), request.getGuestEmail())
                             .map(rsvp -> {
-                                int currentPassengers = driver.getPassengers().size();
-                                if (currentPassengers >= driver.getCapacity()) {
+                                SeatReservationService.JoinResult result = seatReservationService.joinCar(driver, rsvp);
+                                if (result == SeatReservationService.JoinResult.FULL) {
                                     Map<String, String> error = new HashMap<>();
                                     error.put("error", "Car is full");
                                     return ResponseEntity.badRequest().body(error);
                                 }
+                                if (result == SeatReservationService.JoinResult.CONFLICT) {
+                                    Map<String, String> error = new HashMap<>();
+                                    error.put("error", "Your ride changed at the same time, please try again");
+                                    return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+                                }
 
-                                rsvp.setDriver(driver);
-                                rsvpRepository.save(rsvp);
+                                publishSeatChange(driver.getEvent().getId(), "joined", driver.getId(), rsvp.getGuestName());
 
                                 Map<String, String> success = new HashMap<>();
                                 success.put("message", "Successfully joined car");
@@ -101,18 +139,21 @@ public class DriverController {
                 .orElseGet(() -> {
                     Map<String, String> error = new HashMap<>();
                     error.put("error", "Driver not found");
-                    return ResponseEntity.notFound().build();
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
                 });
     }
 
     @PostMapping("/{driverId}/leave")
     public ResponseEntity<Map<String, String>> leaveCar(@PathVariable Long driverId, @RequestBody JoinCarRequest request) {
-        return rsvpRepository.findByEventIdAndGuestEmail(
-                driverRepository.findById(driverId).get().getEvent().getId(),
-                request.getGuestEmail())
+        return driverRepository.findEventIdById(driverId)
+                .flatMap(eventId -> {
+                    rateLimiter.check(RateLimiter.Rule.EVENT_WRITES, eventId);
+                    return rsvpRepository.findByEventIdAndGuestEmail(eventId, request.getGuestEmail());
+                })
+                .filter(rsvp -> seatReservationService.leaveCar(driverId, rsvp))
                 .map(rsvp -> {
-                    rsvp.setDriver(null);
-                    rsvpRepository.save(rsvp);
+                    publishSeatChange(rsvp.getEvent().getId(), "left", driverId, rsvp.getGuestName());
+
                     Map<String, String> success = new HashMap<>();
                     success.put("message", "Left car successfully");
                     return ResponseEntity.ok(success);
@@ -120,6 +161,24 @@ public class DriverController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // A car move locks two cars and can deadlock with a carpool run locking the event's cars;
+    // the database aborts one side, and the guest just tries again
+    @ExceptionHandler(PessimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> seatLockConflict() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "Your ride changed at the same time, please try again"));
+    }
+
+    private void publishSeatChange(Long eventId, String action, Long driverId, String guestName) {
+        Map<String, Object> delta = new HashMap<>();
+        delta.put("action", action);
+        delta.put("driverId", driverId);
+        if (guestName != null) {
+            delta.put("guestName", guestName);
+        }
+        eventStreamService.publish(eventId, "driver", delta);
+    }
+
     public static class DriverRequest {
         private Long eventId;
         private String driverName;
@@ -148,42 +207,4 @@ public class DriverController {
         public String getGuestEmail() { return guestEmail; }
         public void setGuestEmail(String guestEmail) { this.guestEmail = guestEmail; }
     }
-
-    public static class DriverResponse {
-        private Long id;
-        private String driverName;
-        private String driverEmail;
-        private LocalDateTime departureTime;
-        private Integer capacity;
-        private String carDetails;
-        private List<PassengerInfo> passengers;
-        private Integer spotsAvailable;
-
-        public Long getId() { return id; }
-        public void setId(Long id) { this.id = id; }
-        public String getDriverName() { return driverName; }
-        public void setDriverName(String driverName) { this.driverName = driverName; }
-        public String getDriverEmail() { return driverEmail; }
-        public void setDriverEmail(String driverEmail) { this.driverEmail = driverEmail; }
-        public LocalDateTime getDepartureTime() { return departureTime; }
-        public void setDepartureTime(LocalDateTime departureTime) { this.departureTime = departureTime; }
-        public Integer getCapacity() { return capacity; }
-        public void setCapacity(Integer capacity) { this.capacity = capacity; }
-        public String getCarDetails() { return carDetails; }
-        public void setCarDetails(String carDetails) { this.carDetails = carDetails; }
-        public List<PassengerInfo> getPassengers() { return passengers; }
-        public void setPassengers(List<PassengerInfo> passengers) { this.passengers = passengers; }
-        public Integer getSpotsAvailable() { return spotsAvailable; }
-        public void setSpotsAvailable(Integer spotsAvailable) { this.spotsAvailable = spotsAvailable; }
-    }
-
-    public static class PassengerInfo {
-        private String name;
-        private String email;
-
-        public String getName() { return name; }
-        public void setName(String name) { this.name = name; }
-        public String getEmail() { return email; }
-        public void setEmail(String email) { this.email = email; }
-    }
 }
@@ -1,18 +1,39 @@
 package com.hangout.controller;
 
+import com.hangout.dto.CursorPage;
+import com.hangout.dto.EventCursor;
+import com.hangout.dto.EventDetailResponse;
+import com.hangout.dto.EventHeadcount;
+import com.hangout.dto.EventSummary;
 import com.hangout.model.Event;
-import com.hangout.model.User;
 import com.hangout.repository.EventRepository;
 import com.hangout.repository.UserRepository;
+import com.hangout.service.AttendeeExportService;
+import com.hangout.service.EventDetailService;
+import com.hangout.service.EventStreamService;
+import com.hangout.service.RsvpImportService;
+import com.hangout.service.UserIdentityCache;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/events")
@@ -25,37 +46,144 @@ public class EventController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserIdentityCache userIdentityCache;
+
+    @Autowired
+    private EventDetailService eventDetailService;
+
+    @Autowired
+    private EventStreamService eventStreamService;
+
+    @Autowired
+    private RsvpImportService rsvpImportService;
+
+    @Autowired
+    private AttendeeExportService attendeeExportService;
+
+    @Value("${hangout.events.max-page-size:100}")
+    private int maxPageSize;
+
     @GetMapping
-    public List<Event> getAllEvents(Principal principal) {
+    public CursorPage<EventSummary> getAllEvents(@RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "20") int limit,
+                                                 Principal principal) {
         if (principal == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
                     "Must be logged in to view events");
         }
 
-        User user = userRepository.findByEmail(principal.getName())
+        UserIdentityCache.UserIdentity user = userIdentityCache.findByEmail(principal.getName())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
 
-        return eventRepository.findEventsByUserOrRsvp(user, user.getEmail());
+        return findEventPage(user, EventCursor.START.getEventDate(), cursor, limit);
     }
 
     @GetMapping("/upcoming")
-    public List<Event> getUpcomingEvents(Principal principal) {
+    public CursorPage<EventSummary> getUpcomingEvents(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "20") int limit,
+                                                      Principal principal) {
         if (principal == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
                     "Must be logged in to view events");
         }
 
-        User user = userRepository.findByEmail(principal.getName())
+        UserIdentityCache.UserIdentity user = userIdentityCache.findByEmail(principal.getName())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
 
-        return eventRepository.findUpcomingEventsByUserOrRsvp(user, user.getEmail(), LocalDateTime.now());
+        return findEventPage(user, LocalDateTime.now(), cursor, limit);
+    }
+
+    // Fetches one row past the page to know whether there is a next page
+    private CursorPage<EventSummary> findEventPage(UserIdentityCache.UserIdentity user, LocalDateTime notBefore, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        EventCursor after;
+        try {
+            after = cursor != null ? EventCursor.decode(cursor) : EventCursor.START;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+
+        List<EventSummary> events = eventRepository.findEventSummaryPage(user.getId(), user.getEmail(), notBefore,
+                after.getEventDate(), after.getId(), pageSize + 1);
+
+        String nextCursor = null;
+        if (events.size() > pageSize) {
+            events = events.subList(0, pageSize);
+            EventSummary last = events.get(pageSize - 1);
+            nextCursor = new EventCursor(last.getEventDate(), last.getId()).encode();
+        }
+        return new CursorPage<>(events, nextCursor);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Event> getEventById(@PathVariable Long id) {
-        return eventRepository.findById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Event> getEventById(@PathVariable Long id, WebRequest request) {
+        return EventETags.conditionalGet(eventRepository, id, request, () -> eventRepository.findById(id));
+    }
+
+    @GetMapping("/{id}/full")
+    public ResponseEntity<EventDetailResponse> getEventDetail(@PathVariable Long id, WebRequest request) {
+        return EventETags.conditionalGet(eventRepository, id, request, () -> eventDetailService.getEventDetail(id));
+    }
+
+    @GetMapping("/{id}/headcount")
+    public ResponseEntity<EventHeadcount> getHeadcount(@PathVariable Long id, WebRequest request) {
+        return EventETags.conditionalGet(eventRepository, id, request, () -> eventRepository.findHeadcountById(id));
+    }
+
+    @PostMapping(path = "/{id}/rsvps:import", consumes = {RsvpImportService.CSV, RsvpImportService.NDJSON})
+    public RsvpImportService.ImportResult importRsvps(@PathVariable Long id,
+                                                      @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                      InputStream body,
+                                                      Principal principal) throws IOException {
+        Event event = requireOrganizer(id, principal, "import RSVPs");
+        MediaType type = MediaType.parseMediaType(contentType);
+        boolean csv = "csv".equalsIgnoreCase(type.getSubtype());
+        Charset charset = type.getCharset() != null ? type.getCharset() : StandardCharsets.UTF_8;
+        return rsvpImportService.importRsvps(event, body, csv, charset);
+    }
+
+    @GetMapping("/{id}/attendees.csv")
+    public ResponseEntity<StreamingResponseBody> exportAttendeesCsv(@PathVariable Long id, Principal principal) {
+        requireOrganizer(id, principal, "export attendees");
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"event-" + id + "-attendees.csv\"")
+                .body(attendeeExportService.csv(id));
+    }
+
+    @GetMapping("/{id}/attendees.ndjson")
+    public ResponseEntity<StreamingResponseBody> exportAttendeesNdjson(@PathVariable Long id, Principal principal) {
+        requireOrganizer(id, principal, "export attendees");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(RsvpImportService.NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"event-" + id + "-attendees.ndjson\"")
+                .body(attendeeExportService.ndjson(id));
+    }
+
+    // Guest lists and their emails are only for the organizer
+    private Event requireOrganizer(Long id, Principal principal, String action) {
+        if (principal == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
+                    "Must be logged in to " + action);
+        }
+
+        Event event = eventRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (event.getOrganizer() != null &&
+            !event.getOrganizer().getEmail().equals(principal.getName())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "Only event organizer can " + action);
+        }
+        return event;
+    }
+
+    @GetMapping(path = "/{id}/stream", produces = "text/event-stream")
+    public SseEmitter streamEvent(@PathVariable Long id, HttpServletRequest request) {
+        if (!eventRepository.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return eventStreamService.subscribe(id, request.getRemoteAddr());
     }
 
     @PostMapping
@@ -65,10 +193,10 @@ public class EventController {
                     "Must be logged in to create events");
         }
 
-        User organizer = userRepository.findByEmail(principal.getName())
+        UserIdentityCache.UserIdentity organizer = userIdentityCache.findByEmail(principal.getName())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
 
-        event.setOrganizer(organizer);
+        event.setOrganizer(userRepository.getReferenceById(organizer.getId()));
         event.setCreatedAt(LocalDateTime.now());
 
         // Backward compatibility: also set string fields
@@ -100,8 +228,12 @@ public class EventController {
                     event.setEventDate(eventDetails.getEventDate());
                     event.setLocation(eventDetails.getLocation());
                     event.setCarpoolMode(eventDetails.getCarpoolMode());
+                    event.setCarpoolAlgorithm(eventDetails.getCarpoolAlgorithm());
 
-                    return ResponseEntity.ok(eventRepository.save(event));
+                    Event saved = eventRepository.save(event);
+                    eventRepository.bumpDataVersion(id);
+                    eventStreamService.publish(id, "event", Map.of("action", "updated"));
+                    return ResponseEntity.ok(saved);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -122,6 +254,7 @@ public class EventController {
                     }
 
                     eventRepository.delete(event);
+                    eventStreamService.publish(id, "event", Map.of("action", "deleted"));
                     return ResponseEntity.ok().<Void>build();
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -0,0 +1,64 @@
+package com.hangout.controller;
+
+import com.hangout.repository.EventRepository;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GETs for the reads of a single event. The ETag is the event's data version, so an
+ * If-None-Match that still matches is answered with 304 after one scalar lookup, before any
+ * entity is loaded.
+ */
+final class EventETags {
+
+    // Let the browser keep the body but revalidate every time (and stop the default no-store)
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private EventETags() {
+    }
+
+    /**
+     * Answers with 304 if the client already has the current version, otherwise loads the body.
+     * If the event does not exist the body is served as before, without an ETag.
+     */
+    static <T> ResponseEntity<T> conditionalGet(EventRepository eventRepository, Long eventId,
+                                                WebRequest request, Supplier<Optional<T>> body) {
+        // Read the version before the data: if a write lands in between, the client caches
+        // newer data under an older tag and simply refetches next time
+        String etag = eventRepository.findDataVersionById(eventId)
+                .map(version -> "\"" + eventId + "-" + version + "\"")
+                .orElse(null);
+
+        if (etag != null && matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+        }
+
+        return body.get()
+                .map(value -> etag != null
+                        ? ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(value)
+                        : ResponseEntity.ok(value))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(etag) || candidate.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
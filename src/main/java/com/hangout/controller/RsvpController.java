@@ -4,13 +4,25 @@ import com.hangout.model.Event;
 import com.hangout.model.Rsvp;
 import com.hangout.repository.EventRepository;
 import com.hangout.repository.RsvpRepository;
+import com.hangout.service.CarpoolRecomputeScheduler;
 import com.hangout.service.CarpoolService;
+import com.hangout.service.EventCounterService;
+import com.hangout.service.EventStreamService;
+import com.hangout.service.RateLimiter;
+import com.hangout.service.RsvpWriteMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/rsvps")
@@ -24,15 +36,30 @@ public class RsvpController {
     private EventRepository eventRepository;
 
     @Autowired
-    private CarpoolService carpoolService;
+    private CarpoolRecomputeScheduler carpoolRecomputeScheduler;
+
+    @Autowired
+    private EventStreamService eventStreamService;
+
+    @Autowired
+    private RsvpWriteMetrics rsvpWriteMetrics;
+
+    @Autowired
+    private EventCounterService eventCounterService;
+
+    @Autowired
+    private RateLimiter rateLimiter;
 
     @GetMapping("/event/{eventId}")
-    public List<Rsvp> getRsvpsByEvent(@PathVariable Long eventId) {
-        return rsvpRepository.findByEventId(eventId);
+    public ResponseEntity<List<Rsvp>> getRsvpsByEvent(@PathVariable Long eventId, WebRequest request) {
+        return EventETags.conditionalGet(eventRepository, eventId, request,
+                () -> Optional.of(rsvpRepository.findByEventId(eventId)));
     }
 
     @PostMapping
     public ResponseEntity<Rsvp> createRsvp(@RequestBody RsvpRequest request) {
+        // Everyone's writes to one event share a budget, so a hot event cannot swamp carpool runs
+        rateLimiter.check(RateLimiter.Rule.EVENT_WRITES, request.getEventId());
         return eventRepository.findById(request.getEventId())
                 .map(event -> {
                     Rsvp existingRsvp = rsvpRepository
@@ -40,14 +67,16 @@ public class RsvpController {
                             .orElse(null);
 
                     Rsvp rsvp;
+                    CarpoolService.RsvpSnapshot previous = CarpoolService.RsvpSnapshot.NONE;
                     if (existingRsvp != null) {
+                        previous = CarpoolService.RsvpSnapshot.of(existingRsvp);
                         existingRsvp.setStatus(request.getStatus());
                         existingRsvp.setMessage(request.getMessage());
                         existingRsvp.setIsDriver(request.getIsDriver());
                         existingRsvp.setArrivalTime(request.getArrivalTime());
                         existingRsvp.setSeats(request.getSeats());
                         existingRsvp.setRespondedAt(LocalDateTime.now());
-                        rsvp = rsvpRepository.save(existingRsvp);
+                        rsvp = eventCounterService.saveRsvp(existingRsvp, previous.getStatus());
                     } else {
                         rsvp = new Rsvp();
                         rsvp.setEvent(event);
@@ -58,19 +87,54 @@ public class RsvpController {
                         rsvp.setIsDriver(request.getIsDriver());
                         rsvp.setArrivalTime(request.getArrivalTime());
                         rsvp.setSeats(request.getSeats());
-                        rsvp = rsvpRepository.save(rsvp);
+                        rsvp = eventCounterService.saveRsvp(rsvp, null);
                     }
 
-                    // Auto-assign carpools if event is in AUTO mode
+                    // Queue this RSVP's change for the carpools if event is in AUTO mode
                     if (event.getCarpoolMode() == Event.CarpoolMode.AUTO) {
-                        carpoolService.autoAssignCarpools(event);
+                        carpoolRecomputeScheduler.submitChange(event.getId(), rsvp.getId(), previous);
                     }
 
+                    eventRepository.bumpDataVersion(event.getId());
+                    rsvpWriteMetrics.recordWrites(event.getId(), 1);
+
+                    Map<String, Object> delta = new HashMap<>();
+                    delta.put("rsvpId", rsvp.getId());
+                    delta.put("guestName", rsvp.getGuestName());
+                    delta.put("status", rsvp.getStatus());
+                    delta.put("isDriver", rsvp.getIsDriver());
+                    eventStreamService.publish(event.getId(), "rsvp", delta);
+
                     return ResponseEntity.ok(rsvp);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Map<String, String>> integrityViolation(DataIntegrityViolationException e) {
+        // Two first-time RSVPs for the same email raced past the lookup; the unique index kept one
+        if (RsvpRepository.isDuplicateGuest(e)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "An RSVP for this email was just submitted, please try again"));
+        }
+        // A value the columns cannot hold (too long, missing); anything else is our bug
+        String sqlState = sqlState(e);
+        if (sqlState != null && (sqlState.startsWith("22") || sqlState.equals("23502"))) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "This RSVP has a missing or too long field"));
+        }
+        throw e;
+    }
+
+    private static String sqlState(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && sql.getSQLState() != null) {
+                return sql.getSQLState();
+            }
+        }
+        return null;
+    }
+
     public static class RsvpRequest {
         private Long eventId;
         private String guestName;
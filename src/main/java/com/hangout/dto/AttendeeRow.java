@@ -0,0 +1,70 @@
+package com.hangout.dto;
+
+import com.hangout.model.Rsvp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of the attendee export: an RSVP and the name of the driver whose car it is in, if any.
+ */
+public class AttendeeRow {
+    private final String guestName;
+    private final String guestEmail;
+    private final Rsvp.RsvpStatus status;
+    private final String message;
+    private final Boolean isDriver;
+    private final LocalDateTime arrivalTime;
+    private final Integer seats;
+    private final String driverName;
+    private final LocalDateTime respondedAt;
+
+    public AttendeeRow(String guestName, String guestEmail, Rsvp.RsvpStatus status, String message,
+                       Boolean isDriver, LocalDateTime arrivalTime, Integer seats, String driverName,
+                       LocalDateTime respondedAt) {
+        this.guestName = guestName;
+        this.guestEmail = guestEmail;
+        this.status = status;
+        this.message = message;
+        this.isDriver = isDriver;
+        this.arrivalTime = arrivalTime;
+        this.seats = seats;
+        this.driverName = driverName;
+        this.respondedAt = respondedAt;
+    }
+
+    public String getGuestName() {
+        return guestName;
+    }
+
+    public String getGuestEmail() {
+        return guestEmail;
+    }
+
+    public Rsvp.RsvpStatus getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public Boolean getIsDriver() {
+        return isDriver;
+    }
+
+    public LocalDateTime getArrivalTime() {
+        return arrivalTime;
+    }
+
+    public Integer getSeats() {
+        return seats;
+    }
+
+    public String getDriverName() {
+        return driverName;
+    }
+
+    public LocalDateTime getRespondedAt() {
+        return respondedAt;
+    }
+}
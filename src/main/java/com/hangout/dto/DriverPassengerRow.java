@@ -0,0 +1,63 @@
+package com.hangout.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of the drivers-with-passengers projection: a driver joined with one of its
+ * passengers, or with null passenger fields for an empty car.
+ */
+public class DriverPassengerRow {
+    private final Long driverId;
+    private final String driverName;
+    private final String driverEmail;
+    private final LocalDateTime departureTime;
+    private final Integer capacity;
+    private final String carDetails;
+    private final String passengerName;
+    private final String passengerEmail;
+
+    public DriverPassengerRow(Long driverId, String driverName, String driverEmail,
+                              LocalDateTime departureTime, Integer capacity, String carDetails,
+                              String passengerName, String passengerEmail) {
+        this.driverId = driverId;
+        this.driverName = driverName;
+        this.driverEmail = driverEmail;
+        this.departureTime = departureTime;
+        this.capacity = capacity;
+        this.carDetails = carDetails;
+        this.passengerName = passengerName;
+        this.passengerEmail = passengerEmail;
+    }
+
+    public Long getDriverId() {
+        return driverId;
+    }
+
+    public String getDriverName() {
+        return driverName;
+    }
+
+    public String getDriverEmail() {
+        return driverEmail;
+    }
+
+    public LocalDateTime getDepartureTime() {
+        return departureTime;
+    }
+
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public String getCarDetails() {
+        return carDetails;
+    }
+
+    public String getPassengerName() {
+        return passengerName;
+    }
+
+    public String getPassengerEmail() {
+        return passengerEmail;
+    }
+}
@@ -0,0 +1,65 @@
+package com.hangout.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** A car of an event with its passengers, as shown on the event page and the drivers list. */
+public class DriverResponse {
+    private Long id;
+    private String driverName;
+    private String driverEmail;
+    private LocalDateTime departureTime;
+    private Integer capacity;
+    private String carDetails;
+    private List<PassengerInfo> passengers;
+    private Integer spotsAvailable;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getDriverName() { return driverName; }
+    public void setDriverName(String driverName) { this.driverName = driverName; }
+    public String getDriverEmail() { return driverEmail; }
+    public void setDriverEmail(String driverEmail) { this.driverEmail = driverEmail; }
+    public LocalDateTime getDepartureTime() { return departureTime; }
+    public void setDepartureTime(LocalDateTime departureTime) { this.departureTime = departureTime; }
+    public Integer getCapacity() { return capacity; }
+    public void setCapacity(Integer capacity) { this.capacity = capacity; }
+    public String getCarDetails() { return carDetails; }
+    public void setCarDetails(String carDetails) { this.carDetails = carDetails; }
+    public List<PassengerInfo> getPassengers() { return passengers; }
+    public void setPassengers(List<PassengerInfo> passengers) { this.passengers = passengers; }
+    public Integer getSpotsAvailable() { return spotsAvailable; }
+    public void setSpotsAvailable(Integer spotsAvailable) { this.spotsAvailable = spotsAvailable; }
+
+    /** Folds the ordered driver/passenger rows into one response per driver. */
+    public static List<DriverResponse> fromRows(List<DriverPassengerRow> rows) {
+        Map<Long, DriverResponse> responses = new LinkedHashMap<>();
+        for (DriverPassengerRow row : rows) {
+            DriverResponse response = responses.computeIfAbsent(row.getDriverId(), id -> {
+                DriverResponse driver = new DriverResponse();
+                driver.setId(row.getDriverId());
+                driver.setDriverName(row.getDriverName());
+                driver.setDriverEmail(row.getDriverEmail());
+                driver.setDepartureTime(row.getDepartureTime());
+                driver.setCapacity(row.getCapacity());
+                driver.setCarDetails(row.getCarDetails());
+                driver.setPassengers(new ArrayList<>());
+                return driver;
+            });
+
+            if (row.getPassengerEmail() != null) {
+                PassengerInfo info = new PassengerInfo();
+                info.setName(row.getPassengerName());
+                info.setEmail(row.getPassengerEmail());
+                response.getPassengers().add(info);
+            }
+        }
+
+        responses.values().forEach(response ->
+                response.setSpotsAvailable(response.getCapacity() - response.getPassengers().size()));
+        return new ArrayList<>(responses.values());
+    }
+}
@@ -0,0 +1,52 @@
+package com.hangout.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in the event feed: the (eventDate, id) of the last event on the previous
+ * page. Clients only ever see it as an opaque token.
+ */
+public class EventCursor {
+
+    /** Sorts before every real event. */
+    public static final EventCursor START = new EventCursor(LocalDateTime.of(1, 1, 1, 0, 0), 0L);
+
+    private final LocalDateTime eventDate;
+    private final Long id;
+
+    public EventCursor(LocalDateTime eventDate, Long id) {
+        this.eventDate = eventDate;
+        this.id = id;
+    }
+
+    public LocalDateTime getEventDate() {
+        return eventDate;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = eventDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @throws IllegalArgumentException if the token was not produced by {@link #encode()} */
+    public static EventCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new EventCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.hangout.dto;
+
+import com.hangout.model.Event;
+import com.hangout.model.Rsvp;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class EventDetailResponse {
+    private Long id;
+    private String title;
+    private String description;
+    private LocalDateTime eventDate;
+    private String location;
+    private String organizerName;
+    private String organizerEmail;
+    private Event.CarpoolMode carpoolMode;
+    private Event.CarpoolAlgorithm carpoolAlgorithm;
+    private List<Rsvp> rsvps;
+    private List<DriverResponse> drivers;
+
+    public static EventDetailResponse from(Event event, List<DriverResponse> drivers) {
+        EventDetailResponse response = new EventDetailResponse();
+        response.setId(event.getId());
+        response.setTitle(event.getTitle());
+        response.setDescription(event.getDescription());
+        response.setEventDate(event.getEventDate());
+        response.setLocation(event.getLocation());
+        response.setOrganizerName(event.getOrganizerName());
+        response.setOrganizerEmail(event.getOrganizerEmail());
+        response.setCarpoolMode(event.getCarpoolMode());
+        response.setCarpoolAlgorithm(event.getCarpoolAlgorithm());
+        response.setRsvps(event.getRsvps());
+        response.setDrivers(drivers);
+        return response;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public LocalDateTime getEventDate() {
+        return eventDate;
+    }
+
+    public void setEventDate(LocalDateTime eventDate) {
+        this.eventDate = eventDate;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public String getOrganizerName() {
+        return organizerName;
+    }
+
+    public void setOrganizerName(String organizerName) {
+        this.organizerName = organizerName;
+    }
+
+    public String getOrganizerEmail() {
+        return organizerEmail;
+    }
+
+    public void setOrganizerEmail(String organizerEmail) {
+        this.organizerEmail = organizerEmail;
+    }
+
+    public Event.CarpoolMode getCarpoolMode() {
+        return carpoolMode;
+    }
+
+    public void setCarpoolMode(Event.CarpoolMode carpoolMode) {
+        this.carpoolMode = carpoolMode;
+    }
+
+    public Event.CarpoolAlgorithm getCarpoolAlgorithm() {
+        return carpoolAlgorithm;
+    }
+
+    public void setCarpoolAlgorithm(Event.CarpoolAlgorithm carpoolAlgorithm) {
+        this.carpoolAlgorithm = carpoolAlgorithm;
+    }
+
+    public List<Rsvp> getRsvps() {
+        return rsvps;
+    }
+
+    public void setRsvps(List<Rsvp> rsvps) {
+        this.rsvps = rsvps;
+    }
+
+    public List<DriverResponse> getDrivers() {
+        return drivers;
+    }
+
+    public void setDrivers(List<DriverResponse> drivers) {
+        this.drivers = drivers;
+    }
+}
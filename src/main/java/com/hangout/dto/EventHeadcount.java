@@ -0,0 +1,46 @@
+package com.hangout.dto;
+
+/**
+ * How many are coming and how many car seats are left, read straight from the event's counter
+ * columns.
+ */
+public class EventHeadcount {
+    private final int yesCount;
+    private final int maybeCount;
+    private final int noCount;
+    private final int seatsTotal;
+    private final int seatsTaken;
+
+    public EventHeadcount(Integer yesCount, Integer maybeCount, Integer noCount,
+                          Integer seatsTotal, Integer seatsTaken) {
+        this.yesCount = yesCount;
+        this.maybeCount = maybeCount;
+        this.noCount = noCount;
+        this.seatsTotal = seatsTotal;
+        this.seatsTaken = seatsTaken;
+    }
+
+    public int getYesCount() {
+        return yesCount;
+    }
+
+    public int getMaybeCount() {
+        return maybeCount;
+    }
+
+    public int getNoCount() {
+        return noCount;
+    }
+
+    public int getSeatsTotal() {
+        return seatsTotal;
+    }
+
+    public int getSeatsTaken() {
+        return seatsTaken;
+    }
+
+    public int getSeatsFree() {
+        return Math.max(0, seatsTotal - seatsTaken);
+    }
+}
@@ -0,0 +1,77 @@
+package com.hangout.dto;
+
+import com.hangout.model.Event;
+
+import java.time.LocalDateTime;
+
+/**
+ * One event in the event lists: the card fields and RSVP counts per status, without the RSVPs
+ * themselves. Built by the Event.findEventSummaryPage query.
+ */
+public class EventSummary {
+    private final Long id;
+    private final String title;
+    private final String description;
+    private final LocalDateTime eventDate;
+    private final String location;
+    private final String organizerName;
+    private final Event.CarpoolMode carpoolMode;
+    private final int yesCount;
+    private final int maybeCount;
+    private final int noCount;
+
+    public EventSummary(Long id, String title, String description, LocalDateTime eventDate,
+                        String location, String organizerName, String carpoolMode,
+                        Integer yesCount, Integer maybeCount, Integer noCount) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.eventDate = eventDate;
+        this.location = location;
+        this.organizerName = organizerName;
+        this.carpoolMode = Event.CarpoolMode.valueOf(carpoolMode);
+        this.yesCount = yesCount;
+        this.maybeCount = maybeCount;
+        this.noCount = noCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public LocalDateTime getEventDate() {
+        return eventDate;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public String getOrganizerName() {
+        return organizerName;
+    }
+
+    public Event.CarpoolMode getCarpoolMode() {
+        return carpoolMode;
+    }
+
+    public int getYesCount() {
+        return yesCount;
+    }
+
+    public int getMaybeCount() {
+        return maybeCount;
+    }
+
+    public int getNoCount() {
+        return noCount;
+    }
+}
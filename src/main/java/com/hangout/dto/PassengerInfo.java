@@ -0,0 +1,11 @@
+package com.hangout.dto;
+
+public class PassengerInfo {
+    private String name;
+    private String email;
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+}
@@ -1,15 +1,21 @@
 package com.hangout.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+// Dynamic updates so entity saves never write back a stale seatsTaken
 @Entity
-@Table(name = "drivers")
+@DynamicUpdate
+@Table(name = "drivers", indexes = {
+        @Index(name = "idx_drivers_event_departure", columnList = "event_id, departure_time")
+})
 public class Driver {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "drivers_seq")
+    @SequenceGenerator(name = "drivers_seq", sequenceName = "drivers_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -30,10 +36,14 @@ public class Driver {
 
     private String carDetails;
 
+    // Denormalized passenger count; joins and leaves change it with conditional updates only
+    @Column(name = "seats_taken", nullable = false, columnDefinition = "integer default 0")
+    private Integer seatsTaken = 0;
+
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
-    @OneToMany(mappedBy = "driver", cascade = CascadeType.ALL)
+    @OneToMany(mappedBy = "driver")
     private List<Rsvp> passengers = new ArrayList<>();
 
     public Driver() {
@@ -96,6 +106,14 @@ public class Driver {
         this.carDetails = carDetails;
     }
 
+    public Integer getSeatsTaken() {
+        return seatsTaken;
+    }
+
+    public void setSeatsTaken(Integer seatsTaken) {
+        this.seatsTaken = seatsTaken;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
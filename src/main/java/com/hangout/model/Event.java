@@ -1,16 +1,53 @@
 package com.hangout.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.hangout.dto.EventSummary;
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "events")
+@Table(name = "events", indexes = {
+        @Index(name = "idx_events_organizer_date", columnList = "organizer_id, event_date")
+})
+// One page of events the user organized or RSVP'd to, after the (afterDate, afterId) keyset position.
+// Each UNION branch is a seek on its own index (events(organizer_id, event_date) and
+// rsvps(guest_email, event_id)) and is cut to one page before the merge. RSVP counts come from
+// the event's own counter columns, so no RSVP rows are read.
+@NamedNativeQuery(name = "Event.findEventSummaryPage", resultSetMapping = "EventSummary",
+        query = "SELECT e.id, e.title, e.description, e.event_date, e.location, e.organizer_name, e.carpool_mode, " +
+                "  e.yes_count, e.maybe_count, e.no_count " +
+                "FROM events e JOIN (" +
+                "  (SELECT o.id FROM events o " +
+                "   WHERE o.organizer_id = :userId AND o.event_date > :notBefore " +
+                "   AND (o.event_date > :afterDate OR (o.event_date = :afterDate AND o.id > :afterId)) " +
+                "   ORDER BY o.event_date, o.id LIMIT :limit) " +
+                "  UNION " +
+                "  (SELECT g.id FROM rsvps r JOIN events g ON g.id = r.event_id " +
+                "   WHERE r.guest_email = :email AND g.event_date > :notBefore " +
+                "   AND (g.event_date > :afterDate OR (g.event_date = :afterDate AND g.id > :afterId)) " +
+                "   ORDER BY g.event_date, g.id LIMIT :limit)" +
+                ") page ON page.id = e.id " +
+                "ORDER BY e.event_date, e.id LIMIT :limit")
+@SqlResultSetMapping(name = "EventSummary", classes = @ConstructorResult(targetClass = EventSummary.class, columns = {
+        @ColumnResult(name = "id", type = Long.class),
+        @ColumnResult(name = "title", type = String.class),
+        @ColumnResult(name = "description", type = String.class),
+        @ColumnResult(name = "event_date", type = LocalDateTime.class),
+        @ColumnResult(name = "location", type = String.class),
+        @ColumnResult(name = "organizer_name", type = String.class),
+        @ColumnResult(name = "carpool_mode", type = String.class),
+        @ColumnResult(name = "yes_count", type = Integer.class),
+        @ColumnResult(name = "maybe_count", type = Integer.class),
+        @ColumnResult(name = "no_count", type = Integer.class)
+}))
 public class Event {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "events_seq")
+    @SequenceGenerator(name = "events_seq", sequenceName = "events_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -19,7 +56,7 @@ public class Event {
     @Column(length = 1000)
     private String description;
 
-    @Column(nullable = false)
+    @Column(name = "event_date", nullable = false)
     private LocalDateTime eventDate;
 
     @Column(nullable = false)
@@ -41,8 +78,43 @@ public class Event {
 
     @Column(nullable = false)
     @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
     private CarpoolMode carpoolMode = CarpoolMode.NONE;
 
+    // Null means the default configured for the carpool mode
+    @Column
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    private CarpoolAlgorithm carpoolAlgorithm;
+
+    // Bumped with a bulk UPDATE on every change to the event, its RSVPs or its drivers and
+    // served as the ETag of the event's reads; never written through the entity
+    @Column(name = "data_version", nullable = false, updatable = false, columnDefinition = "bigint default 0")
+    @JsonIgnore
+    private long dataVersion = 0;
+
+    // Denormalized headcounts, moved only by delta UPDATEs (see EventCounterService); like
+    // dataVersion they are never written through the entity
+    @Column(name = "yes_count", nullable = false, updatable = false)
+    @JsonIgnore
+    private int yesCount = 0;
+
+    @Column(name = "maybe_count", nullable = false, updatable = false)
+    @JsonIgnore
+    private int maybeCount = 0;
+
+    @Column(name = "no_count", nullable = false, updatable = false)
+    @JsonIgnore
+    private int noCount = 0;
+
+    @Column(name = "seats_total", nullable = false, updatable = false)
+    @JsonIgnore
+    private int seatsTotal = 0;
+
+    @Column(name = "seats_taken", nullable = false, updatable = false)
+    @JsonIgnore
+    private int seatsTaken = 0;
+
     @OneToMany(mappedBy = "event", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Rsvp> rsvps = new ArrayList<>();
 
@@ -50,6 +122,10 @@ public class Event {
         NONE, MANUAL, AUTO
     }
 
+    public enum CarpoolAlgorithm {
+        GREEDY, OPTIMAL
+    }
+
     public Event() {
         this.createdAt = LocalDateTime.now();
     }
@@ -134,6 +210,38 @@ public class Event {
         this.carpoolMode = carpoolMode;
     }
 
+    public CarpoolAlgorithm getCarpoolAlgorithm() {
+        return carpoolAlgorithm;
+    }
+
+    public void setCarpoolAlgorithm(CarpoolAlgorithm carpoolAlgorithm) {
+        this.carpoolAlgorithm = carpoolAlgorithm;
+    }
+
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    public int getYesCount() {
+        return yesCount;
+    }
+
+    public int getMaybeCount() {
+        return maybeCount;
+    }
+
+    public int getNoCount() {
+        return noCount;
+    }
+
+    public int getSeatsTotal() {
+        return seatsTotal;
+    }
+
+    public int getSeatsTaken() {
+        return seatsTaken;
+    }
+
     public User getOrganizer() {
         return organizer;
     }
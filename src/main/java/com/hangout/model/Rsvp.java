@@ -2,16 +2,26 @@ package com.hangout.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "rsvps")
+@Table(name = "rsvps", indexes = {
+        @Index(name = "idx_rsvps_guest_email_event", columnList = "guest_email, event_id"),
+        @Index(name = Rsvp.UNIQUE_GUEST_INDEX, columnList = "event_id, guest_email", unique = true),
+        @Index(name = "idx_rsvps_driver_responded", columnList = "driver_id, responded_at")
+})
 public class Rsvp {
+    // One RSVP per guest per event
+    public static final String UNIQUE_GUEST_INDEX = "ux_rsvps_event_guest_email";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rsvps_seq")
+    @SequenceGenerator(name = "rsvps_seq", sequenceName = "rsvps_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "event_id", nullable = false)
     @JsonIgnore
     private Event event;
@@ -19,11 +29,12 @@ public class Rsvp {
     @Column(nullable = false)
     private String guestName;
 
-    @Column(nullable = false)
+    @Column(name = "guest_email", nullable = false)
     private String guestEmail;
 
     @Column(nullable = false)
     @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
     private RsvpStatus status;
 
     private String message;
@@ -37,7 +48,7 @@ public class Rsvp {
     @Column
     private Integer seats;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "driver_id")
     @JsonIgnore
     private Driver driver;
@@ -1,12 +1,59 @@
 package com.hangout.repository;
 
+import com.hangout.dto.DriverPassengerRow;
 import com.hangout.model.Driver;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface DriverRepository extends JpaRepository<Driver, Long> {
     List<Driver> findByEventIdOrderByDepartureTimeAsc(Long eventId);
+
+    // Just the car's event id, for checks that should not pay for loading the driver
+    @Query("SELECT d.event.id FROM Driver d WHERE d.id = :id")
+    Optional<Long> findEventIdById(@Param("id") Long id);
+
+    // A rebuild holds all of its event's cars until it commits; joins and leaves to them wait for it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM Driver d WHERE d.event.id = :eventId ORDER BY d.id")
+    List<Driver> findByEventIdForUpdate(@Param("eventId") Long eventId);
+
+    // An incremental run locks only a car whose driver drops out or changes the car
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM Driver d WHERE d.id = :id")
+    Optional<Driver> findByIdForUpdate(@Param("id") Long id);
+
+    // Drivers with passenger name and email in one round trip, one row per passenger
+    @Query("SELECT new com.hangout.dto.DriverPassengerRow(d.id, d.driverName, d.driverEmail, " +
+           "d.departureTime, d.capacity, d.carDetails, r.guestName, r.guestEmail) " +
+           "FROM Driver d LEFT JOIN d.passengers r " +
+           "WHERE d.event.id = :eventId " +
+           "ORDER BY d.departureTime ASC, d.id ASC, r.id ASC")
+    @Transactional(readOnly = true)
+    List<DriverPassengerRow> findDriverPassengerRows(@Param("eventId") Long eventId);
+
+    // Takes a seat only if one is free; returns 0 when the car is full
+    @Modifying
+    @Query("UPDATE Driver d SET d.seatsTaken = d.seatsTaken + 1 " +
+           "WHERE d.id = :id AND d.seatsTaken < d.capacity")
+    int reserveSeat(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Driver d SET d.seatsTaken = d.seatsTaken - 1 " +
+           "WHERE d.id = :id AND d.seatsTaken > 0")
+    int releaseSeat(@Param("id") Long id);
+
+    // Passengers must be unassigned first (see RsvpRepository.clearDriverAssignments)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Driver d WHERE d.event.id = :eventId")
+    int deleteAllByEventIdInBulk(@Param("eventId") Long eventId);
 }
@@ -1,31 +1,87 @@
 package com.hangout.repository;
 
+import com.hangout.dto.EventHeadcount;
+import com.hangout.dto.EventSummary;
 import com.hangout.model.Event;
-import com.hangout.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface EventRepository extends JpaRepository<Event, Long> {
     List<Event> findByEventDateAfterOrderByEventDateAsc(LocalDateTime date);
 
-    // Find events where user is organizer or has RSVP'd
-    @Query("SELECT DISTINCT e FROM Event e LEFT JOIN e.rsvps r " +
-           "WHERE e.organizer = :user OR r.guestEmail = :email " +
-           "ORDER BY e.eventDate ASC")
-    List<Event> findEventsByUserOrRsvp(@Param("user") User user, @Param("email") String email);
-
-    // Find upcoming events where user is organizer or has RSVP'd
-    @Query("SELECT DISTINCT e FROM Event e LEFT JOIN e.rsvps r " +
-           "WHERE (e.organizer = :user OR r.guestEmail = :email) " +
-           "AND e.eventDate > :currentDate " +
-           "ORDER BY e.eventDate ASC")
-    List<Event> findUpcomingEventsByUserOrRsvp(@Param("user") User user,
-                                                 @Param("email") String email,
-                                                 @Param("currentDate") LocalDateTime currentDate);
+    @Transactional(readOnly = true)
+    @Query("SELECT e.dataVersion FROM Event e WHERE e.id = :id")
+    Optional<Long> findDataVersionById(@Param("id") Long id);
+
+    // Joins the caller's transaction, so a bump made during a write commits with it
+    @Transactional
+    @Modifying
+    @Query("UPDATE Event e SET e.dataVersion = e.dataVersion + 1 WHERE e.id = :id")
+    int bumpDataVersion(@Param("id") Long id);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.hangout.dto.EventHeadcount(e.yesCount, e.maybeCount, e.noCount, e.seatsTotal, e.seatsTaken) " +
+           "FROM Event e WHERE e.id = :id")
+    Optional<EventHeadcount> findHeadcountById(@Param("id") Long id);
+
+    // Counter deltas; like bumpDataVersion these join the caller's transaction
+    @Transactional
+    @Modifying
+    @Query("UPDATE Event e SET e.yesCount = e.yesCount + :yes, e.maybeCount = e.maybeCount + :maybe, " +
+           "e.noCount = e.noCount + :no WHERE e.id = :id")
+    int addRsvpCounts(@Param("id") Long id, @Param("yes") int yes, @Param("maybe") int maybe, @Param("no") int no);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Event e SET e.seatsTotal = e.seatsTotal + :total, e.seatsTaken = e.seatsTaken + :taken " +
+           "WHERE e.id = :id")
+    int addSeatCounts(@Param("id") Long id, @Param("total") int total, @Param("taken") int taken);
+
+    @Query("SELECT MAX(e.id) FROM Event e")
+    Optional<Long> findMaxId();
+
+    // Events in (afterId, upToId] whose counters disagree with their rsvps and drivers rows
+    @Query(value = "SELECT e.id FROM events e WHERE e.id > :afterId AND e.id <= :upToId AND (" +
+           "  e.yes_count <> (SELECT COUNT(*) FROM rsvps r WHERE r.event_id = e.id AND r.status = 'YES') " +
+           "  OR e.maybe_count <> (SELECT COUNT(*) FROM rsvps r WHERE r.event_id = e.id AND r.status = 'MAYBE') " +
+           "  OR e.no_count <> (SELECT COUNT(*) FROM rsvps r WHERE r.event_id = e.id AND r.status = 'NO') " +
+           "  OR e.seats_total <> (SELECT COALESCE(SUM(d.capacity), 0) FROM drivers d WHERE d.event_id = e.id) " +
+           "  OR e.seats_taken <> (SELECT COALESCE(SUM(d.seats_taken), 0) FROM drivers d WHERE d.event_id = e.id))",
+           nativeQuery = true)
+    List<Long> findEventIdsWithCounterDrift(@Param("afterId") Long afterId, @Param("upToId") Long upToId);
+
+    // Recomputes the counters from scratch, after flushing pending entity changes so they are counted
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE events SET " +
+           "  yes_count = (SELECT COUNT(*) FROM rsvps r WHERE r.event_id = events.id AND r.status = 'YES'), " +
+           "  maybe_count = (SELECT COUNT(*) FROM rsvps r WHERE r.event_id = events.id AND r.status = 'MAYBE'), " +
+           "  no_count = (SELECT COUNT(*) FROM rsvps r WHERE r.event_id = events.id AND r.status = 'NO'), " +
+           "  seats_total = (SELECT COALESCE(SUM(d.capacity), 0) FROM drivers d WHERE d.event_id = events.id), " +
+           "  seats_taken = (SELECT COALESCE(SUM(d.seats_taken), 0) FROM drivers d WHERE d.event_id = events.id) " +
+           "WHERE id IN (:ids)",
+           nativeQuery = true)
+    int recountCounters(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT e FROM Event e LEFT JOIN FETCH e.rsvps WHERE e.id = :id")
+    Optional<Event> findWithRsvpsById(@Param("id") Long id);
+
+    // Query and result mapping are declared on Event (Event.findEventSummaryPage)
+    @Transactional(readOnly = true)
+    List<EventSummary> findEventSummaryPage(@Param("userId") Long userId,
+                                            @Param("email") String email,
+                                            @Param("notBefore") LocalDateTime notBefore,
+                                            @Param("afterDate") LocalDateTime afterDate,
+                                            @Param("afterId") Long afterId,
+                                            @Param("limit") int limit);
 }
@@ -1,14 +1,92 @@
 package com.hangout.repository;
 
+import com.hangout.dto.AttendeeRow;
+import com.hangout.model.Driver;
 import com.hangout.model.Rsvp;
+import jakarta.persistence.QueryHint;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface RsvpRepository extends JpaRepository<Rsvp, Long> {
+    // Read-only so GET requests can be served from the replica; joins the caller's transaction in writes
+    @Transactional(readOnly = true)
     List<Rsvp> findByEventId(Long eventId);
+
     Optional<Rsvp> findByEventIdAndGuestEmail(Long eventId, String guestEmail);
+    List<Rsvp> findByEventIdAndGuestEmailIn(Long eventId, Collection<String> guestEmails);
+
+    // Forward-only cursor over an event's RSVPs for the export; DTO rows, so nothing piles up in the
+    // persistence context. Must be consumed (and closed) inside a transaction.
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.hangout.dto.AttendeeRow(r.guestName, r.guestEmail, r.status, r.message, " +
+           "r.isDriver, r.arrivalTime, r.seats, d.driverName, r.respondedAt) " +
+           "FROM Rsvp r LEFT JOIN r.driver d " +
+           "WHERE r.event.id = :eventId ORDER BY r.id")
+    Stream<AttendeeRow> streamAttendeesByEventId(@Param("eventId") Long eventId);
+    List<Rsvp> findByDriverIdOrderByRespondedAtAsc(Long driverId);
+
+    // Rows of [driverId, passengerCount] for every car of the event that has passengers
+    @Query("SELECT r.driver.id, COUNT(r) FROM Rsvp r " +
+           "WHERE r.event.id = :eventId AND r.driver IS NOT NULL " +
+           "GROUP BY r.driver.id")
+    List<Object[]> countPassengersByDriver(@Param("eventId") Long eventId);
+
+    // Passengers with the given status that are not sitting in any car yet
+    @Query("SELECT r FROM Rsvp r WHERE r.event.id = :eventId " +
+           "AND r.status = :status " +
+           "AND r.arrivalTime IS NOT NULL " +
+           "AND (r.isDriver IS NULL OR r.isDriver = false) " +
+           "AND r.driver IS NULL " +
+           "ORDER BY r.arrivalTime ASC")
+    List<Rsvp> findUnassignedPassengers(@Param("eventId") Long eventId,
+                                        @Param("status") Rsvp.RsvpStatus status);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Rsvp r SET r.driver = null WHERE r.event.id = :eventId AND r.driver IS NOT NULL")
+    int clearDriverAssignments(@Param("eventId") Long eventId);
+
+    // Compare-and-set on the RSVP's car; each returns 0 if the RSVP was moved concurrently
+    @Modifying
+    @Query("UPDATE Rsvp r SET r.driver = :driver WHERE r.id = :id AND r.driver IS NULL")
+    int assignDriverIfUnassigned(@Param("id") Long id, @Param("driver") Driver driver);
+
+    @Modifying
+    @Query("UPDATE Rsvp r SET r.driver = :driver WHERE r.id = :id AND r.driver = :previous")
+    int moveToDriver(@Param("id") Long id, @Param("previous") Driver previous, @Param("driver") Driver driver);
+
+    @Modifying
+    @Query("UPDATE Rsvp r SET r.driver = null WHERE r.id = :id AND r.driver.id = :driverId")
+    int unassignDriver(@Param("id") Long id, @Param("driverId") Long driverId);
+
+    // True only when the one-RSVP-per-guest unique index refused the write, not any other constraint
+    static boolean isDuplicateGuest(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String name = cause instanceof ConstraintViolationException violation
+                    ? violation.getConstraintName()
+                    : cause instanceof SQLException ? cause.getMessage() : null;
+            if (name != null && name.toLowerCase(Locale.ROOT).contains(Rsvp.UNIQUE_GUEST_INDEX)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,134 @@
+package com.hangout.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hangout.dto.AttendeeRow;
+import com.hangout.repository.RsvpRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+/**
+ * Attendee lists written straight to the response while the RSVPs are read through a forward-only
+ * cursor. Heap use does not depend on the number of guests: rows are DTOs that are dropped once
+ * written, and the export runs in a read-only transaction on the async response thread.
+ *
+ * <p>Open-in-view binds the request's EntityManager to that thread too, so the transaction joins
+ * the request's persistence context. It stays empty because the query selects DTOs, not entities;
+ * nothing is managed, and nothing accumulates however many rows stream through.
+ */
+@Service
+public class AttendeeExportService {
+
+    private static final String CSV_HEADER =
+            "guestName,guestEmail,status,message,isDriver,arrivalTime,seats,driverName,respondedAt";
+
+    @Autowired
+    private RsvpRepository rsvpRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTransaction;
+    private ObjectWriter ndjsonWriter;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        // One object per line on a shared writer: do not close or flush it after every value
+        ndjsonWriter = objectMapper.writerFor(AttendeeRow.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public StreamingResponseBody csv(Long eventId) {
+        return out -> export(eventId, new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), true);
+    }
+
+    public StreamingResponseBody ndjson(Long eventId) {
+        return out -> export(eventId, new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), false);
+    }
+
+    private void export(Long eventId, Writer writer, boolean csv) throws IOException {
+        if (csv) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<AttendeeRow> rows = rsvpRepository.streamAttendeesByEventId(eventId)) {
+                    rows.forEach(row -> {
+                        try {
+                            if (csv) {
+                                writeCsv(writer, row);
+                            } else {
+                                ndjsonWriter.writeValue(writer, row);
+                                writer.write('\n');
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; let the container see the original error
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static void writeCsv(Writer writer, AttendeeRow row) throws IOException {
+        writer.write(csvField(row.getGuestName()));
+        writer.write(',');
+        writer.write(csvField(row.getGuestEmail()));
+        writer.write(',');
+        writer.write(csvField(row.getStatus()));
+        writer.write(',');
+        writer.write(csvField(row.getMessage()));
+        writer.write(',');
+        writer.write(csvField(row.getIsDriver()));
+        writer.write(',');
+        writer.write(csvField(row.getArrivalTime()));
+        writer.write(',');
+        writer.write(csvField(row.getSeats()));
+        writer.write(',');
+        writer.write(csvField(row.getDriverName()));
+        writer.write(',');
+        writer.write(csvField(row.getRespondedAt()));
+        writer.write('\n');
+    }
+
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        // Guest-typed text starting like a formula would be evaluated by spreadsheet apps; a leading
+        // tab or carriage return can smuggle one past that check, so it is quoted the same way
+        if (value instanceof String && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
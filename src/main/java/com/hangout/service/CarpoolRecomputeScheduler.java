@@ -0,0 +1,260 @@
+package com.hangout.service;
+
+import com.hangout.model.Event;
+import com.hangout.repository.EventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs carpool recomputes off the request thread. Changes are queued per event and collapsed
+ * into a single run once the event has been quiet for a short period; at most one recompute
+ * runs per event at a time. A run that fails puts its changes back with an exponential backoff;
+ * after a few failed incremental runs the event falls back to a full rebuild.
+ */
+@Service
+public class CarpoolRecomputeScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(CarpoolRecomputeScheduler.class);
+
+    @Autowired
+    private CarpoolService carpoolService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EventStreamService eventStreamService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${hangout.carpool.recompute.quiet-period-ms:500}")
+    private long quietPeriodMs;
+
+    @Value("${hangout.carpool.recompute.max-delay-ms:5000}")
+    private long maxDelayMs;
+
+    @Value("${hangout.carpool.recompute.threads:2}")
+    private int threads;
+
+    @Value("${hangout.carpool.recompute.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Value("${hangout.carpool.recompute.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    @Value("${hangout.carpool.recompute.rebuild-after-failures:3}")
+    private int rebuildAfterFailures;
+
+    private final Map<Long, PendingRecompute> pending = new ConcurrentHashMap<>();
+    private ScheduledThreadPoolExecutor executor;
+    private Timer recomputeLag;
+    private Counter failedRuns;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "carpool-recompute-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+
+        Gauge.builder("hangout.carpool.recompute.queue.depth", this, CarpoolRecomputeScheduler::getQueueDepth)
+                .description("Events with queued carpool work that has not started yet")
+                .register(meterRegistry);
+        Gauge.builder("hangout.carpool.recompute.queue.lag", this, CarpoolRecomputeScheduler::getLagMillis)
+                .description("Age of the oldest queued carpool change")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        recomputeLag = Timer.builder("hangout.carpool.recompute.lag")
+                .description("Time from the first queued change to the finished recompute")
+                .register(meterRegistry);
+        failedRuns = Counter.builder("hangout.carpool.recompute.failures")
+                .description("Carpool recomputes that failed and were queued again")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Queues an RSVP change. If the RSVP changes again before the run, the oldest
+     * snapshot is kept so the engine sees the full delta.
+     */
+    public void submitChange(Long eventId, Long rsvpId, CarpoolService.RsvpSnapshot previous) {
+        enqueue(eventId, state -> state.changes.putIfAbsent(rsvpId, previous));
+    }
+
+    /** Queues several RSVP changes of one event at once, as one run. */
+    public void submitChanges(Long eventId, Map<Long, CarpoolService.RsvpSnapshot> previous) {
+        enqueue(eventId, state -> previous.forEach(state.changes::putIfAbsent));
+    }
+
+    public void requestRebuild(Long eventId) {
+        enqueue(eventId, state -> state.rebuild = true);
+    }
+
+    /** Number of events with queued work that has not started running yet. */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (PendingRecompute state : pending.values()) {
+            synchronized (state) {
+                if (state.hasWork()) {
+                    depth++;
+                }
+            }
+        }
+        return depth;
+    }
+
+    /** Age of the oldest queued change that has not started running yet. */
+    public long getLagMillis() {
+        long now = System.currentTimeMillis();
+        long oldest = now;
+        for (PendingRecompute state : pending.values()) {
+            synchronized (state) {
+                if (state.hasWork()) {
+                    oldest = Math.min(oldest, state.firstQueuedAt);
+                }
+            }
+        }
+        return now - oldest;
+    }
+
+    private void enqueue(Long eventId, Consumer<PendingRecompute> update) {
+        while (true) {
+            PendingRecompute state = pending.computeIfAbsent(eventId, id -> new PendingRecompute());
+            synchronized (state) {
+                if (state.retired) {
+                    continue;
+                }
+                if (!state.hasWork()) {
+                    state.firstQueuedAt = System.currentTimeMillis();
+                }
+                update.accept(state);
+                if (!state.running) {
+                    schedule(eventId, state);
+                }
+                return;
+            }
+        }
+    }
+
+    // Caller must hold the state lock. Pushes the run back on every change, up to maxDelayMs,
+    // but never before a failed run's backoff has passed.
+    private void schedule(Long eventId, PendingRecompute state) {
+        long now = System.currentTimeMillis();
+        long waited = now - state.firstQueuedAt;
+        long delay = Math.max(0, Math.min(quietPeriodMs, maxDelayMs - waited));
+        delay = Math.max(delay, state.retryAt - now);
+        if (state.timer != null) {
+            state.timer.cancel(false);
+        }
+        state.timer = executor.schedule(() -> run(eventId, state), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void run(Long eventId, PendingRecompute state) {
+        Map<Long, CarpoolService.RsvpSnapshot> changes;
+        boolean rebuild;
+        long queuedAt;
+        synchronized (state) {
+            if (state.running || !state.hasWork()) {
+                return;
+            }
+            changes = state.changes;
+            rebuild = state.rebuild;
+            queuedAt = state.firstQueuedAt;
+            state.changes = new HashMap<>();
+            state.rebuild = false;
+            state.timer = null;
+            state.running = true;
+        }
+
+        try {
+            eventRepository.findById(eventId).ifPresent(event -> {
+                if (rebuild) {
+                    carpoolService.autoAssignCarpools(event);
+                } else if (event.getCarpoolMode() == Event.CarpoolMode.AUTO) {
+                    carpoolService.applyRsvpChanges(event, changes);
+                } else {
+                    return;
+                }
+                eventStreamService.publish(eventId, "carpools", Map.of("rebuild", rebuild));
+            });
+            recomputeLag.record(System.currentTimeMillis() - queuedAt, TimeUnit.MILLISECONDS);
+            synchronized (state) {
+                state.failures = 0;
+                state.retryAt = 0;
+            }
+        } catch (RuntimeException e) {
+            failedRuns.increment();
+            synchronized (state) {
+                requeue(state, changes, rebuild, queuedAt);
+                log.error("Carpool recompute failed for event {} (attempt {}), retrying in {} ms",
+                        eventId, state.failures, state.retryAt - System.currentTimeMillis(), e);
+            }
+        } finally {
+            synchronized (state) {
+                state.running = false;
+                if (state.hasWork()) {
+                    schedule(eventId, state);
+                } else {
+                    state.retired = true;
+                    pending.remove(eventId, state);
+                }
+            }
+        }
+    }
+
+    // Caller must hold the state lock. The failed run's snapshots are older than anything queued
+    // since, so they win; repeated incremental failures turn into a rebuild.
+    private void requeue(PendingRecompute state, Map<Long, CarpoolService.RsvpSnapshot> changes,
+                         boolean rebuild, long queuedAt) {
+        state.failures++;
+        state.changes.putAll(changes);
+        state.rebuild |= rebuild || state.failures >= rebuildAfterFailures;
+        if (state.rebuild) {
+            state.changes.clear();
+        }
+        state.firstQueuedAt = Math.min(state.firstQueuedAt, queuedAt);
+        long backoff = retryBackoffMs << Math.min(state.failures - 1, 20);
+        state.retryAt = System.currentTimeMillis() + Math.min(backoff, maxBackoffMs);
+    }
+
+    private static class PendingRecompute {
+        Map<Long, CarpoolService.RsvpSnapshot> changes = new HashMap<>();
+        boolean rebuild;
+        long firstQueuedAt;
+        int failures;
+        long retryAt;
+        boolean running;
+        boolean retired;
+        ScheduledFuture<?> timer;
+
+        boolean hasWork() {
+            return rebuild || !changes.isEmpty();
+        }
+    }
+}
@@ -4,34 +4,95 @@ import com.hangout.model.Driver;
 import com.hangout.model.Event;
 import com.hangout.model.Rsvp;
 import com.hangout.repository.DriverRepository;
+import com.hangout.repository.EventRepository;
 import com.hangout.repository.RsvpRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class CarpoolService {
 
+    private static final int DEFAULT_CAPACITY = 4;
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
     @Autowired
     private DriverRepository driverRepository;
 
     @Autowired
     private RsvpRepository rsvpRepository;
 
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EventCounterService eventCounterService;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Event.CarpoolAlgorithm, CarpoolStrategy> strategies = new EnumMap<>(Event.CarpoolAlgorithm.class);
+
+    @Autowired
+    public void setStrategies(List<CarpoolStrategy> carpoolStrategies) {
+        carpoolStrategies.forEach(strategy -> strategies.put(strategy.algorithm(), strategy));
+    }
+
+    /**
+     * The event's own algorithm if set, otherwise hangout.carpool.strategy.&lt;mode&gt;
+     * (e.g. hangout.carpool.strategy.auto), falling back to greedy.
+     */
+    public CarpoolStrategy strategyFor(Event event) {
+        Event.CarpoolAlgorithm algorithm = event.getCarpoolAlgorithm();
+        if (algorithm == null) {
+            algorithm = environment.getProperty(
+                    "hangout.carpool.strategy." + event.getCarpoolMode().name().toLowerCase(),
+                    Event.CarpoolAlgorithm.class, Event.CarpoolAlgorithm.GREEDY);
+        }
+        return strategies.get(algorithm);
+    }
+
+    /**
+     * Full rebuild: drops every driver for the event and reassigns all attendees from scratch.
+     * Only used when explicitly requested; RSVP changes go through {@link #applyRsvpChanges}.
+     */
+    @Transactional
     public void autoAssignCarpools(Event event) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CarpoolStrategy strategy = strategyFor(event);
+
+        // Lock the cars first, so a join or leave cannot land between the clear and the delete
+        driverRepository.findByEventIdForUpdate(event.getId());
+
+        // Clear existing driver assignments and drop the old cars in two bulk statements
+        rsvpRepository.clearDriverAssignments(event.getId());
+        driverRepository.deleteAllByEventIdInBulk(event.getId());
+
         List<Rsvp> attendees = rsvpRepository.findByEventId(event.getId()).stream()
-                .filter(rsvp -> rsvp.getStatus() == Rsvp.RsvpStatus.YES)
-                .filter(rsvp -> rsvp.getArrivalTime() != null)
+                .filter(rsvp -> RsvpSnapshot.of(rsvp).isAttending())
                 .sorted(Comparator.comparing(Rsvp::getArrivalTime))
                 .collect(Collectors.toList());
 
-        // Clear existing driver assignments
-        attendees.forEach(rsvp -> rsvp.setDriver(null));
-
         // Separate drivers and passengers
         List<Rsvp> drivers = attendees.stream()
                 .filter(rsvp -> Boolean.TRUE.equals(rsvp.getIsDriver()))
@@ -41,60 +102,330 @@ public class CarpoolService {
                 .filter(rsvp -> !Boolean.TRUE.equals(rsvp.getIsDriver()))
                 .collect(Collectors.toList());
 
-        // Delete old auto-created drivers for this event
-        List<Driver> existingDrivers = driverRepository.findByEventIdOrderByDepartureTimeAsc(event.getId());
-        driverRepository.deleteAll(existingDrivers);
-
-        // Create Driver entities for each driver RSVP
-        for (Rsvp driverRsvp : drivers) {
-            Driver driver = new Driver();
-            driver.setEvent(event);
-            driver.setDriverName(driverRsvp.getGuestName());
-            driver.setDriverEmail(driverRsvp.getGuestEmail());
-            driver.setDepartureTime(driverRsvp.getArrivalTime());
-            driver.setCapacity(driverRsvp.getSeats() != null ? driverRsvp.getSeats() : 4);
-            driver.setCarDetails("Auto-assigned");
-            driver = driverRepository.save(driver);
+        // Create Driver entities for each driver RSVP; ids come from the pooled sequence,
+        // so the inserts and the RSVP updates below go out as JDBC batches on flush
+        List<Driver> newDrivers = drivers.stream()
+                .map(driverRsvp -> newDriver(event, driverRsvp))
+                .collect(Collectors.toList());
+        newDrivers = driverRepository.saveAll(newDrivers);
+
+        DriverSeatIndex seats = new DriverSeatIndex();
+        for (int i = 0; i < newDrivers.size(); i++) {
+            seats.add(newDrivers.get(i), 0);
 
             // Driver takes their own spot
-            driverRsvp.setDriver(driver);
-            rsvpRepository.save(driverRsvp);
+            seat(drivers.get(i), newDrivers.get(i), seats);
         }
 
         // Assign passengers to drivers based on similar arrival times
-        List<Driver> savedDrivers = driverRepository.findByEventIdOrderByDepartureTimeAsc(event.getId());
+        strategy.assign(passengers, seats).forEach(Rsvp::setDriver);
+        syncSeatsTaken(newDrivers, seats);
+        // Every car was replaced, so recount the event's seat counters rather than work out a delta
+        eventRepository.recountCounters(List.of(event.getId()));
+        eventRepository.bumpDataVersion(event.getId());
+        recordRun(sample, "rebuild", strategy, attendees.size());
+    }
+
+    /**
+     * Incrementally applies RSVP changes to the existing carpools of an event. Each entry maps
+     * an RSVP id to the state it had before the change ({@link RsvpSnapshot#NONE} for new RSVPs).
+     * Existing drivers and seat assignments are left alone unless the change affects them.
+     */
+    @Transactional
+    public void applyRsvpChanges(Event event, Map<Long, RsvpSnapshot> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CarpoolStrategy strategy = strategyFor(event);
+        Long eventId = event.getId();
+
+        // No locks up front, so joins and leaves (SeatReservationService) carry on during the run.
+        // These counts are only a starting point: seats are taken and given back with the same
+        // conditional updates as a join or leave, and only a car whose driver changes is locked
+        Map<Long, Integer> seatsTaken = new HashMap<>();
+        for (Object[] row : rsvpRepository.countPassengersByDriver(eventId)) {
+            seatsTaken.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+
+        DriverSeatIndex seats = new DriverSeatIndex();
+        Map<String, Driver> driversByEmail = new HashMap<>();
+        for (Driver driver : driverRepository.findByEventIdOrderByDepartureTimeAsc(eventId)) {
+            seats.add(driver, seatsTaken.getOrDefault(driver.getId(), 0));
+            driversByEmail.put(driver.getDriverEmail(), driver);
+        }
+        SeatTotals delta = new SeatTotals();
+
+        // In chunks, so a large coalesced batch stays under the database's bind parameter limit
+        List<Long> changedIds = new ArrayList<>(changes.keySet());
+        List<Rsvp> changed = new ArrayList<>(changedIds.size());
+        for (int from = 0; from < changedIds.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = changedIds.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, changedIds.size()));
+            for (Rsvp rsvp : rsvpRepository.findAllById(chunk)) {
+                if (rsvp.getEvent().getId().equals(eventId)) {
+                    changed.add(rsvp);
+                }
+            }
+        }
+
+        // A set: a passenger of a dropped or shrunk car may also have its own change in this batch,
+        // and must still take only one seat
+        Set<Rsvp> displaced = new LinkedHashSet<>();
+        boolean seatsFreed = false;
+
+        for (Rsvp rsvp : changed) {
+            RsvpSnapshot previous = changes.get(rsvp.getId());
+            RsvpSnapshot current = RsvpSnapshot.of(rsvp);
+            Driver ownCar = driversByEmail.get(rsvp.getGuestEmail());
+
+            if (ownCar != null && !current.isActiveDriver()) {
+                // Dropped out as a driver: hand the passengers back to the pool. Locked first, so
+                // a guest joining now finds the car gone rather than sitting in a deleted car
+                driverRepository.findByIdForUpdate(ownCar.getId());
+                List<Rsvp> passengers = rsvpRepository.findByDriverIdOrderByRespondedAtAsc(ownCar.getId());
+                for (Rsvp passenger : passengers) {
+                    passenger.setDriver(null);
+                    if (passenger != rsvp) {
+                        displaced.add(passenger);
+                    }
+                }
+                delta.capacity -= ownCar.getCapacity();
+                delta.taken -= passengers.size();
+                seats.remove(ownCar);
+                driverRepository.delete(ownCar);
+                driversByEmail.remove(rsvp.getGuestEmail());
+                ownCar = null;
+            }
+
+            if (current.isActiveDriver()) {
+                if (ownCar == null) {
+                    leaveSeat(rsvp, seats, delta);
+                    // Flushed, so the conditional updates below can find the new car
+                    ownCar = driverRepository.saveAndFlush(newDriver(event, rsvp));
+                    driversByEmail.put(rsvp.getGuestEmail(), ownCar);
+                    delta.capacity += ownCar.getCapacity();
+                    seats.add(ownCar, 0);
+                    seats.reserve(ownCar);
+                    takeSeat(rsvp, ownCar, seats, delta);
+                    seatsFreed = true;
+                } else if (!current.equals(previous)) {
+                    seatsFreed |= updateDriver(ownCar, rsvp, seats, displaced, delta);
+                }
+            } else if (current.isActivePassenger()) {
+                boolean unchanged = previous.isActivePassenger()
+                        && Objects.equals(previous.getArrivalTime(), current.getArrivalTime());
+                if (rsvp.getDriver() == null || !unchanged) {
+                    seatsFreed |= rsvp.getDriver() != null;
+                    leaveSeat(rsvp, seats, delta);
+                    displaced.add(rsvp);
+                }
+            } else if (rsvp.getDriver() != null) {
+                leaveSeat(rsvp, seats, delta);
+                seatsFreed = true;
+            }
+        }
+
+        Set<Rsvp> candidates = new LinkedHashSet<>(displaced);
+        if (seatsFreed && seats.hasAvailableSeats()) {
+            candidates.addAll(rsvpRepository.findUnassignedPassengers(eventId, Rsvp.RsvpStatus.YES));
+        }
+        List<Rsvp> toSeat = candidates.stream()
+                .filter(rsvp -> RsvpSnapshot.of(rsvp).isActivePassenger())
+                .sorted(Comparator.comparing(Rsvp::getArrivalTime))
+                .collect(Collectors.toList());
+
+        // Passengers of a dropped or shrunk car were unseated on the entities; write that out
+        // before the conditional updates look at the rows
+        rsvpRepository.flush();
+        while (!toSeat.isEmpty()) {
+            List<Rsvp> retry = new ArrayList<>();
+            strategy.assign(toSeat, seats).forEach((rsvp, driver) -> {
+                if (!takeSeat(rsvp, driver, seats, delta)) {
+                    retry.add(rsvp);
+                }
+            });
+            // Each retry follows a car filling up, so this ends once no car has a seat left
+            retry.sort(Comparator.comparing(Rsvp::getArrivalTime));
+            toSeat = retry;
+        }
+        eventCounterService.seatsChanged(eventId, delta.capacity, delta.taken);
+        eventRepository.bumpDataVersion(event.getId());
+        recordRun(sample, "incremental", strategy, changes.size());
+    }
 
-        for (Rsvp passenger : passengers) {
-            Driver bestDriver = findBestDriver(passenger, savedDrivers);
-            if (bestDriver != null) {
-                passenger.setDriver(bestDriver);
-                rsvpRepository.save(passenger);
+    @Transactional
+    public void applyRsvpChange(Event event, Long rsvpId, RsvpSnapshot previous) {
+        Map<Long, RsvpSnapshot> changes = new HashMap<>();
+        changes.put(rsvpId, previous);
+        applyRsvpChanges(event, changes);
+    }
+
+    private void recordRun(Timer.Sample sample, String mode, CarpoolStrategy strategy, int rsvps) {
+        sample.stop(Timer.builder("hangout.carpool.assign")
+                .description("Carpool assignment runs, excluding the flush at commit")
+                .tag("mode", mode)
+                .tag("algorithm", strategy.algorithm().name())
+                .register(meterRegistry));
+        Counter.builder("hangout.carpool.rsvps.processed")
+                .tag("mode", mode)
+                .register(meterRegistry)
+                .increment(rsvps);
+    }
+
+    /**
+     * Syncs an existing driver with its RSVP. Returns true if seats were freed up; the most
+     * recent passengers that no longer fit after a capacity cut are added to {@code displaced}.
+     * The car stays locked until the run commits, so no guest can join it over the new capacity.
+     */
+    private boolean updateDriver(Driver driver, Rsvp driverRsvp, DriverSeatIndex seats, Set<Rsvp> displaced,
+                                 SeatTotals delta) {
+        driverRepository.findByIdForUpdate(driver.getId());
+        List<Rsvp> passengers = rsvpRepository.findByDriverIdOrderByRespondedAtAsc(driver.getId());
+        int oldCapacity = driver.getCapacity();
+        int taken = passengers.size();
+        driver.setDepartureTime(driverRsvp.getArrivalTime());
+        driver.setCapacity(capacityOf(driverRsvp));
+        delta.capacity += driver.getCapacity() - oldCapacity;
+
+        for (int i = passengers.size() - 1; i >= 0 && taken > driver.getCapacity(); i--) {
+            Rsvp passenger = passengers.get(i);
+            if (passenger != driverRsvp) {
+                passenger.setDriver(null);
+                displaced.add(passenger);
+                taken--;
+                delta.taken--;
             }
         }
+        // Counted while holding the lock, so the absolute value is safe here
+        driver.setSeatsTaken(taken);
+        seats.add(driver, taken);
+        return driver.getCapacity() > oldCapacity;
     }
 
-    private Driver findBestDriver(Rsvp passenger, List<Driver> drivers) {
-        Driver bestMatch = null;
-        long smallestTimeDiff = Long.MAX_VALUE;
+    private Driver newDriver(Event event, Rsvp driverRsvp) {
+        Driver driver = new Driver();
+        driver.setEvent(event);
+        driver.setDriverName(driverRsvp.getGuestName());
+        driver.setDriverEmail(driverRsvp.getGuestEmail());
+        driver.setDepartureTime(driverRsvp.getArrivalTime());
+        driver.setCapacity(capacityOf(driverRsvp));
+        driver.setCarDetails("Auto-assigned");
+        return driver;
+    }
 
+    private int capacityOf(Rsvp driverRsvp) {
+        return driverRsvp.getSeats() != null ? driverRsvp.getSeats() : DEFAULT_CAPACITY;
+    }
+
+    // Only for a rebuild, which holds every car of the event locked and made them all itself
+    private void syncSeatsTaken(Collection<Driver> drivers, DriverSeatIndex seats) {
         for (Driver driver : drivers) {
-            // Check if driver has available seats
-            long currentPassengers = driver.getPassengers().size();
-            if (currentPassengers >= driver.getCapacity()) {
-                continue;
-            }
+            driver.setSeatsTaken(driver.getCapacity() - seats.remainingSeats(driver));
+        }
+    }
 
-            // Find driver with closest departure time
-            long timeDiff = Math.abs(
-                java.time.Duration.between(passenger.getArrivalTime(), driver.getDepartureTime()).toMinutes()
-            );
+    private void seat(Rsvp rsvp, Driver driver, DriverSeatIndex seats) {
+        seats.reserve(driver);
+        rsvp.setDriver(driver);
+    }
+
+    /**
+     * Seats a passenger the strategy has already taken an index seat for, with the same
+     * conditional updates as {@link SeatReservationService#joinCar}, car first. Returns false if
+     * guests filled the car since the run started. A guest who picked a car on their own in the
+     * meantime keeps it.
+     */
+    private boolean takeSeat(Rsvp rsvp, Driver driver, DriverSeatIndex seats, SeatTotals delta) {
+        if (driverRepository.reserveSeat(driver.getId()) == 0) {
+            seats.add(driver, driver.getCapacity());
+            return false;
+        }
+        if (rsvpRepository.assignDriverIfUnassigned(rsvp.getId(), driver) == 0) {
+            driverRepository.releaseSeat(driver.getId());
+            seats.release(driver);
+        } else {
+            delta.taken++;
+        }
+        return true;
+    }
 
-            if (timeDiff < smallestTimeDiff) {
-                smallestTimeDiff = timeDiff;
-                bestMatch = driver;
+    // As SeatReservationService.leaveCar; nothing to do if the guest already left on their own
+    private void leaveSeat(Rsvp rsvp, DriverSeatIndex seats, SeatTotals delta) {
+        Driver driver = rsvp.getDriver();
+        if (driver == null) {
+            return;
+        }
+        int released = driverRepository.releaseSeat(driver.getId());
+        if (rsvpRepository.unassignDriver(rsvp.getId(), driver.getId()) == 0) {
+            if (released > 0) {
+                driverRepository.reserveSeat(driver.getId());
             }
+            return;
+        }
+        seats.release(driver);
+        delta.taken--;
+    }
+
+    // What a run changed the event's seat counters by
+    private static class SeatTotals {
+        int capacity;
+        int taken;
+    }
+
+    /**
+     * The carpool-relevant part of an RSVP, captured before it is modified so the
+     * incremental engine can tell what actually changed.
+     */
+    public static class RsvpSnapshot {
+        public static final RsvpSnapshot NONE = new RsvpSnapshot(null, false, null, null);
+
+        private final Rsvp.RsvpStatus status;
+        private final boolean driver;
+        private final LocalDateTime arrivalTime;
+        private final Integer seats;
+
+        private RsvpSnapshot(Rsvp.RsvpStatus status, boolean driver, LocalDateTime arrivalTime, Integer seats) {
+            this.status = status;
+            this.driver = driver;
+            this.arrivalTime = arrivalTime;
+            this.seats = seats;
+        }
+
+        public static RsvpSnapshot of(Rsvp rsvp) {
+            return new RsvpSnapshot(rsvp.getStatus(), Boolean.TRUE.equals(rsvp.getIsDriver()),
+                    rsvp.getArrivalTime(), rsvp.getSeats());
         }
 
-        return bestMatch;
+        public Rsvp.RsvpStatus getStatus() { return status; }
+        public boolean isDriver() { return driver; }
+        public LocalDateTime getArrivalTime() { return arrivalTime; }
+        public Integer getSeats() { return seats; }
+
+        public boolean isAttending() {
+            return status == Rsvp.RsvpStatus.YES && arrivalTime != null;
+        }
+
+        public boolean isActiveDriver() {
+            return isAttending() && driver;
+        }
+
+        public boolean isActivePassenger() {
+            return isAttending() && !driver;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RsvpSnapshot)) return false;
+            RsvpSnapshot that = (RsvpSnapshot) o;
+            return driver == that.driver && status == that.status
+                    && Objects.equals(arrivalTime, that.arrivalTime)
+                    && Objects.equals(seats, that.seats);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(status, driver, arrivalTime, seats);
+        }
     }
 }
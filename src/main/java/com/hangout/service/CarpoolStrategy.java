@@ -0,0 +1,23 @@
+package com.hangout.service;
+
+import com.hangout.model.Driver;
+import com.hangout.model.Event;
+import com.hangout.model.Rsvp;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which car each passenger rides in. Implementations take seats from the index as
+ * they assign them and return the passengers they managed to place.
+ */
+public interface CarpoolStrategy {
+
+    Event.CarpoolAlgorithm algorithm();
+
+    /**
+     * @param passengers attending passengers without a seat, ordered by arrival time
+     * @param seats      cars of the event with their remaining seats
+     */
+    Map<Rsvp, Driver> assign(List<Rsvp> passengers, DriverSeatIndex seats);
+}
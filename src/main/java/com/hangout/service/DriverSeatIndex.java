@@ -0,0 +1,148 @@
+package com.hangout.service;
+
+import com.hangout.model.Driver;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Drivers of one assignment run, ordered by departure time, with a plain remaining-seat
+ * counter per car. Only cars with a free seat are kept in the ordered set, so the closest
+ * available driver for an arrival time is a floor/ceiling lookup instead of a full scan.
+ * Not thread-safe; build one per run.
+ */
+public class DriverSeatIndex {
+
+    private static final Comparator<Slot> ORDER = Comparator
+            .comparingLong((Slot slot) -> slot.departure)
+            .thenComparingLong(slot -> slot.driverId);
+
+    private final TreeSet<Slot> available = new TreeSet<>(ORDER);
+    private final Map<Long, Slot> slots = new HashMap<>();
+
+    public void add(Driver driver, int seatsTaken) {
+        Slot slot = new Slot(driver, epochSeconds(driver.getDepartureTime()), driver.getCapacity() - seatsTaken);
+        Slot previous = slots.put(slot.driverId, slot);
+        if (previous != null) {
+            available.remove(previous);
+        }
+        if (slot.remaining > 0) {
+            available.add(slot);
+        }
+    }
+
+    public void remove(Driver driver) {
+        Slot slot = slots.remove(driver.getId());
+        if (slot != null) {
+            available.remove(slot);
+        }
+    }
+
+    /**
+     * Takes a seat in the car whose departure is closest to the arrival time. Ties go to the
+     * earlier departure. Returns null when every car is full.
+     */
+    public Driver reserveClosest(LocalDateTime arrivalTime) {
+        Slot slot = closest(epochSeconds(arrivalTime));
+        if (slot == null) {
+            return null;
+        }
+        take(slot);
+        return slot.driver;
+    }
+
+    /** Takes a seat in a specific car. Returns false if the car is full or unknown. */
+    public boolean reserve(Driver driver) {
+        Slot slot = slots.get(driver.getId());
+        if (slot == null || slot.remaining <= 0) {
+            return false;
+        }
+        take(slot);
+        return true;
+    }
+
+    public void release(Driver driver) {
+        Slot slot = slots.get(driver.getId());
+        if (slot == null) {
+            return;
+        }
+        if (++slot.remaining > 0) {
+            available.add(slot);
+        }
+    }
+
+    public int remainingSeats(Driver driver) {
+        Slot slot = slots.get(driver.getId());
+        return slot != null ? slot.remaining : 0;
+    }
+
+    /** Cars with at least one free seat, in departure order. */
+    public List<Driver> availableDrivers() {
+        List<Driver> drivers = new ArrayList<>(available.size());
+        for (Slot slot : available) {
+            drivers.add(slot.driver);
+        }
+        return drivers;
+    }
+
+    public boolean hasAvailableSeats() {
+        return !available.isEmpty();
+    }
+
+    private Slot closest(long arrival) {
+        Slot probe = Slot.probe(arrival, Long.MIN_VALUE);
+        Slot later = available.ceiling(probe);
+        Slot earlier = available.lower(probe);
+        if (earlier != null) {
+            // Among cars leaving at the same time, prefer the lowest id
+            earlier = available.ceiling(Slot.probe(earlier.departure, Long.MIN_VALUE));
+        }
+        if (earlier == null) {
+            return later;
+        }
+        if (later == null) {
+            return earlier;
+        }
+        return arrival - earlier.departure <= later.departure - arrival ? earlier : later;
+    }
+
+    private void take(Slot slot) {
+        if (--slot.remaining <= 0) {
+            available.remove(slot);
+        }
+    }
+
+    private static long epochSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static class Slot {
+        final Driver driver;
+        final long driverId;
+        final long departure;
+        int remaining;
+
+        Slot(Driver driver, long departure, int remaining) {
+            this.driver = driver;
+            this.driverId = driver.getId();
+            this.departure = departure;
+            this.remaining = remaining;
+        }
+
+        private Slot(long departure, long driverId) {
+            this.driver = null;
+            this.driverId = driverId;
+            this.departure = departure;
+        }
+
+        static Slot probe(long departure, long driverId) {
+            return new Slot(departure, driverId);
+        }
+    }
+}
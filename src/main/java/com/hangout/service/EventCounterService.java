@@ -0,0 +1,136 @@
+package com.hangout.service;
+
+import com.hangout.model.Driver;
+import com.hangout.model.Rsvp;
+import com.hangout.repository.DriverRepository;
+import com.hangout.repository.EventRepository;
+import com.hangout.repository.RsvpRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Keeps the per-event RSVP and seat counters on {@code events} in step with the rsvps and drivers
+ * rows. Writers apply small deltas in the same transaction as the change itself, with a single
+ * UPDATE each, so reading a headcount never touches the RSVPs. A periodic pass recounts any event
+ * whose counters have drifted (e.g. two updates of the same RSVP racing each other).
+ */
+@Service
+public class EventCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(EventCounterService.class);
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private RsvpRepository rsvpRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${hangout.events.counters.reconcile-batch-size:500}")
+    private int reconcileBatchSize;
+
+    private Counter driftFixed;
+
+    @PostConstruct
+    public void start() {
+        driftFixed = Counter.builder("hangout.events.counters.drift")
+                .description("Events whose RSVP or seat counters were found wrong and recounted")
+                .register(meterRegistry);
+    }
+
+    /** Saves the RSVP and moves its event's status counts from {@code previousStatus} (null if new). */
+    @Transactional
+    public Rsvp saveRsvp(Rsvp rsvp, Rsvp.RsvpStatus previousStatus) {
+        Rsvp saved = rsvpRepository.save(rsvp);
+        rsvpStatusChanged(saved.getEvent().getId(), previousStatus, saved.getStatus());
+        return saved;
+    }
+
+    /** Saves a new driver and adds its seats to the event's total. */
+    @Transactional
+    public Driver saveDriver(Driver driver) {
+        Driver saved = driverRepository.save(driver);
+        seatsChanged(saved.getEvent().getId(), saved.getCapacity(), saved.getSeatsTaken());
+        return saved;
+    }
+
+    @Transactional
+    public void rsvpStatusChanged(Long eventId, Rsvp.RsvpStatus previous, Rsvp.RsvpStatus current) {
+        RsvpCountDelta delta = new RsvpCountDelta();
+        delta.add(previous, current);
+        rsvpCountsChanged(eventId, delta);
+    }
+
+    @Transactional
+    public void rsvpCountsChanged(Long eventId, RsvpCountDelta delta) {
+        if (delta.yes != 0 || delta.maybe != 0 || delta.no != 0) {
+            eventRepository.addRsvpCounts(eventId, delta.yes, delta.maybe, delta.no);
+        }
+    }
+
+    @Transactional
+    public void seatsChanged(Long eventId, int totalDelta, int takenDelta) {
+        if (totalDelta != 0 || takenDelta != 0) {
+            eventRepository.addSeatCounts(eventId, totalDelta, takenDelta);
+        }
+    }
+
+    /**
+     * Walks all events in id ranges of {@code reconcile-batch-size} and recounts the ones whose
+     * counters disagree with their rows, fixing each range with a single UPDATE.
+     */
+    @Scheduled(initialDelayString = "${hangout.events.counters.reconcile-interval-ms:600000}",
+               fixedDelayString = "${hangout.events.counters.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        long maxId = eventRepository.findMaxId().orElse(0L);
+        int fixed = 0;
+        for (long afterId = 0; afterId < maxId; afterId += reconcileBatchSize) {
+            fixed += reconcileRange(afterId, afterId + reconcileBatchSize);
+        }
+        if (fixed > 0) {
+            driftFixed.increment(fixed);
+            log.warn("Recounted RSVP and seat counters of {} events that had drifted", fixed);
+        }
+    }
+
+    private int reconcileRange(long afterId, long upToId) {
+        List<Long> drifted = eventRepository.findEventIdsWithCounterDrift(afterId, upToId);
+        if (!drifted.isEmpty()) {
+            eventRepository.recountCounters(drifted);
+        }
+        return drifted.size();
+    }
+
+    /** Status count changes of several RSVPs of one event, applied with a single UPDATE. */
+    public static class RsvpCountDelta {
+        private int yes;
+        private int maybe;
+        private int no;
+
+        /** Records one RSVP moving from {@code previous} (null if new) to {@code current}. */
+        public void add(Rsvp.RsvpStatus previous, Rsvp.RsvpStatus current) {
+            yes += delta(Rsvp.RsvpStatus.YES, previous, current);
+            maybe += delta(Rsvp.RsvpStatus.MAYBE, previous, current);
+            no += delta(Rsvp.RsvpStatus.NO, previous, current);
+        }
+
+        private static int delta(Rsvp.RsvpStatus status, Rsvp.RsvpStatus previous, Rsvp.RsvpStatus current) {
+            return (status == current ? 1 : 0) - (status == previous ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.hangout.service;
+
+import com.hangout.dto.DriverResponse;
+import com.hangout.dto.EventDetailResponse;
+import com.hangout.repository.DriverRepository;
+import com.hangout.repository.EventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Service
+public class EventDetailService {
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    /**
+     * Everything the event page needs in one transaction and two queries: the event with its
+     * RSVPs, and the driver/passenger projection.
+     */
+    @Transactional(readOnly = true)
+    public Optional<EventDetailResponse> getEventDetail(Long eventId) {
+        return eventRepository.findWithRsvpsById(eventId)
+                .map(event -> EventDetailResponse.from(event, DriverResponse.fromRows(
+                        driverRepository.findDriverPassengerRows(eventId))));
+    }
+}
@@ -0,0 +1,314 @@
+package com.hangout.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans out small change notifications to everyone watching an event over Server-Sent Events.
+ * Writers only offer to each subscriber's bounded buffer; sending happens on a separate pool.
+ * A subscriber whose buffer is full is dropped (the browser's EventSource reconnects and
+ * reloads), so a slow client can never hold up an RSVP or carpool write.
+ *
+ * <p>A send is a blocking servlet write, so a client that stops reading ties up the thread
+ * writing to it. The pool grows (up to hangout.events.stream.max-threads) instead of queueing
+ * other subscribers behind it, and a subscriber whose send has not finished within
+ * hangout.events.stream.send-timeout is dropped; a stuck client only ever costs its own thread.
+ */
+@Service
+public class EventStreamService {
+
+    private static final Object HEARTBEAT = new Object();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${hangout.events.stream.buffer-size:32}")
+    private int bufferSize;
+
+    @Value("${hangout.events.stream.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${hangout.events.stream.heartbeat:20s}")
+    private Duration heartbeat;
+
+    @Value("${hangout.events.stream.threads:2}")
+    private int threads;
+
+    @Value("${hangout.events.stream.max-threads:64}")
+    private int maxThreads;
+
+    @Value("${hangout.events.stream.send-timeout:5s}")
+    private Duration sendTimeout;
+
+    @Value("${hangout.events.stream.max-per-event:1000}")
+    private int maxPerEvent;
+
+    @Value("${hangout.events.stream.max-per-client:20}")
+    private int maxPerClient;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, Integer> clientStreams = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor sender;
+    private ScheduledExecutorService heartbeats;
+    private Counter droppedFullBuffer;
+    private Counter droppedSendTimeout;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        // No queue: a send either finds an idle thread or gets a new one, never waits behind a stuck one
+        sender = new ThreadPoolExecutor(threads, Math.max(threads, maxThreads), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "event-stream-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-stream-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats.scheduleAtFixedRate(this::sendHeartbeats,
+                heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+        long stallCheck = Math.max(50, sendTimeout.toMillis() / 2);
+        heartbeats.scheduleAtFixedRate(this::dropStalledSubscribers, stallCheck, stallCheck, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("hangout.events.stream.subscribers", this, EventStreamService::getSubscriberCount)
+                .register(meterRegistry);
+        Gauge.builder("hangout.events.stream.senders", sender, ThreadPoolExecutor::getActiveCount)
+                .description("Threads currently writing to a subscriber")
+                .register(meterRegistry);
+        droppedFullBuffer = Counter.builder("hangout.events.stream.dropped")
+                .description("Subscribers disconnected for falling behind")
+                .tag("reason", "buffer-full")
+                .register(meterRegistry);
+        droppedSendTimeout = Counter.builder("hangout.events.stream.dropped")
+                .description("Subscribers disconnected for falling behind")
+                .tag("reason", "send-timeout")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeats.shutdownNow();
+        sender.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(Subscriber::close));
+    }
+
+    /**
+     * Opens a stream for one client. Answers 429 when the client address already has
+     * max-per-client streams open and 503 when the event has max-per-event watchers.
+     */
+    public SseEmitter subscribe(Long eventId, String client) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        register(eventId, client, emitter);
+        return emitter;
+    }
+
+    void register(Long eventId, String client, SseEmitter emitter) {
+        clientStreams.compute(client, (key, count) -> {
+            int streams = count == null ? 1 : count + 1;
+            if (streams > maxPerClient) {
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many live update streams open");
+            }
+            return streams;
+        });
+
+        Subscriber subscriber = new Subscriber(eventId, client, emitter, new ArrayBlockingQueue<>(bufferSize));
+        try {
+            // Added under the map's lock, so it cannot land in a set that remove() just detached
+            subscribers.compute(eventId, (id, set) -> {
+                Set<Subscriber> watchers = set != null ? set : ConcurrentHashMap.newKeySet();
+                if (watchers.size() >= maxPerEvent) {
+                    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                            "Too many people are watching this event, try again later");
+                }
+                watchers.add(subscriber);
+                return watchers;
+            });
+        } catch (ResponseStatusException e) {
+            releaseClient(client);
+            throw e;
+        }
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+    }
+
+    /**
+     * Queues a delta for every subscriber of the event. Never blocks; call it after the
+     * change has been committed.
+     */
+    public void publish(Long eventId, String type, Map<String, Object> data) {
+        Set<Subscriber> watchers = subscribers.get(eventId);
+        if (watchers == null) {
+            return;
+        }
+        Delta delta = new Delta(type, data);
+        for (Subscriber subscriber : watchers) {
+            subscriber.offer(delta);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void sendHeartbeats() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.offer(HEARTBEAT)));
+    }
+
+    private void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        long limit = sendTimeout.toNanos();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> {
+            long since = subscriber.sendingSince;
+            if (since != 0 && now - since > limit && subscriber.close()) {
+                droppedSendTimeout.increment();
+            }
+        }));
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.registered.compareAndSet(true, false)) {
+            return;
+        }
+        subscribers.computeIfPresent(subscriber.eventId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+        releaseClient(subscriber.client);
+    }
+
+    private void releaseClient(String client) {
+        clientStreams.computeIfPresent(client, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static class Delta {
+        final String type;
+        final Map<String, Object> data;
+
+        Delta(String type, Map<String, Object> data) {
+            this.type = type;
+            this.data = data;
+        }
+    }
+
+    private class Subscriber {
+        final Long eventId;
+        final String client;
+        final SseEmitter emitter;
+        final BlockingQueue<Object> buffer;
+        final AtomicBoolean registered = new AtomicBoolean(true);
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        // System.nanoTime() when the current send started, 0 when not sending
+        volatile long sendingSince;
+
+        Subscriber(Long eventId, String client, SseEmitter emitter, BlockingQueue<Object> buffer) {
+            this.eventId = eventId;
+            this.client = client;
+            this.emitter = emitter;
+            this.buffer = buffer;
+        }
+
+        void offer(Object item) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(item)) {
+                // Too slow to keep up: drop it rather than make writers wait
+                if (close()) {
+                    droppedFullBuffer.increment();
+                }
+                return;
+            }
+            startDraining();
+        }
+
+        void startDraining() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Every sender is busy; the items stay buffered for the next offer or heartbeat
+                    draining.set(false);
+                }
+            }
+        }
+
+        void drain() {
+            try {
+                Object item;
+                while (!closed.get() && (item = buffer.poll()) != null) {
+                    sendingSince = System.nanoTime();
+                    if (item == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        Delta delta = (Delta) item;
+                        emitter.send(SseEmitter.event().name(delta.type).data(delta.data, MediaType.APPLICATION_JSON));
+                    }
+                    sendingSince = 0;
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                sendingSince = 0;
+                draining.set(false);
+            }
+            if (closed.get()) {
+                // Closed while this thread was writing; the emitter was left for it to complete
+                completeIfIdle();
+            } else if (!buffer.isEmpty()) {
+                // An offer may have landed after the last poll but before draining was cleared
+                startDraining();
+            }
+        }
+
+        /** Returns true if this call closed the subscriber. */
+        boolean close() {
+            if (!closed.compareAndSet(false, true)) {
+                return false;
+            }
+            remove(this);
+            buffer.clear();
+            completeIfIdle();
+            return true;
+        }
+
+        // Completing the emitter waits for a send in progress, so it is left to the draining
+        // thread when there is one. Whoever takes the draining flag last completes it.
+        private void completeIfIdle() {
+            if (draining.compareAndSet(false, true)) {
+                emitter.complete();
+            }
+        }
+    }
+}
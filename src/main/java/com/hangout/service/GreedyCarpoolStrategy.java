@@ -0,0 +1,35 @@
+package com.hangout.service;
+
+import com.hangout.model.Driver;
+import com.hangout.model.Event;
+import com.hangout.model.Rsvp;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seats passengers in arrival order, each in the free car leaving closest to their arrival time.
+ */
+@Component
+public class GreedyCarpoolStrategy implements CarpoolStrategy {
+
+    @Override
+    public Event.CarpoolAlgorithm algorithm() {
+        return Event.CarpoolAlgorithm.GREEDY;
+    }
+
+    @Override
+    public Map<Rsvp, Driver> assign(List<Rsvp> passengers, DriverSeatIndex seats) {
+        Map<Rsvp, Driver> assignments = new LinkedHashMap<>();
+        for (Rsvp passenger : passengers) {
+            Driver bestDriver = seats.reserveClosest(passenger.getArrivalTime());
+            if (bestDriver == null) {
+                break;
+            }
+            assignments.put(passenger, bestDriver);
+        }
+        return assignments;
+    }
+}
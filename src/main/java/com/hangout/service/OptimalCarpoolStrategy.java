@@ -0,0 +1,218 @@
+package com.hangout.service;
+
+import com.hangout.model.Driver;
+import com.hangout.model.Event;
+import com.hangout.model.Rsvp;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seats as many passengers as possible while minimising the total gap between arrival and
+ * departure times, using min-cost flow over passenger/car pairs. Each passenger is only
+ * connected to the few cars leaving closest to their arrival, which keeps the graph linear in
+ * the number of passengers. When the time budget runs out, the matching found so far is kept
+ * and the remaining passengers are placed greedily.
+ */
+@Component
+public class OptimalCarpoolStrategy implements CarpoolStrategy {
+
+    @Autowired
+    private GreedyCarpoolStrategy greedyCarpoolStrategy;
+
+    @Value("${hangout.carpool.optimal.time-budget-ms:200}")
+    private long timeBudgetMs;
+
+    @Value("${hangout.carpool.optimal.candidates-per-side:8}")
+    private int candidatesPerSide;
+
+    @Override
+    public Event.CarpoolAlgorithm algorithm() {
+        return Event.CarpoolAlgorithm.OPTIMAL;
+    }
+
+    @Override
+    public Map<Rsvp, Driver> assign(List<Rsvp> passengers, DriverSeatIndex seats) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMs);
+        Map<Rsvp, Driver> assignments = new LinkedHashMap<>();
+        List<Driver> drivers = seats.availableDrivers();
+        if (passengers.isEmpty() || drivers.isEmpty()) {
+            return assignments;
+        }
+
+        int passengerCount = passengers.size();
+        int driverCount = drivers.size();
+        long[] departures = new long[driverCount];
+        for (int j = 0; j < driverCount; j++) {
+            departures[j] = drivers.get(j).getDepartureTime().toEpochSecond(ZoneOffset.UTC);
+        }
+
+        // Nodes: passengers [0, P), cars [P, P + D), then source and sink
+        int source = passengerCount + driverCount;
+        int sink = source + 1;
+        MinCostFlow flow = new MinCostFlow(sink + 1, passengerCount * (2 * candidatesPerSide + 1) + driverCount);
+
+        for (int i = 0; i < passengerCount; i++) {
+            flow.addEdge(source, i, 1, 0);
+            long arrival = passengers.get(i).getArrivalTime().toEpochSecond(ZoneOffset.UTC);
+            int nearest = lowerBound(departures, arrival);
+            int from = Math.max(0, nearest - candidatesPerSide);
+            int to = Math.min(driverCount, nearest + candidatesPerSide);
+            for (int j = from; j < to; j++) {
+                flow.addEdge(i, passengerCount + j, 1, Math.abs(arrival - departures[j]));
+            }
+        }
+        for (int j = 0; j < driverCount; j++) {
+            flow.addEdge(passengerCount + j, sink, seats.remainingSeats(drivers.get(j)), 0);
+        }
+
+        flow.run(source, sink, deadline);
+
+        List<Rsvp> unplaced = new ArrayList<>();
+        for (int i = 0; i < passengerCount; i++) {
+            int car = flow.matchedNode(i, passengerCount, passengerCount + driverCount);
+            if (car >= 0 && seats.reserve(drivers.get(car - passengerCount))) {
+                assignments.put(passengers.get(i), drivers.get(car - passengerCount));
+            } else {
+                unplaced.add(passengers.get(i));
+            }
+        }
+
+        // Budget ran out or no nearby car had room: fill what is left greedily
+        assignments.putAll(greedyCarpoolStrategy.assign(unplaced, seats));
+        return assignments;
+    }
+
+    private static int lowerBound(long[] sorted, long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Successive shortest paths with Dijkstra and node potentials. Edge e and its residual
+     * twin e ^ 1 are stored next to each other.
+     */
+    private static class MinCostFlow {
+        private static final long INF = Long.MAX_VALUE / 4;
+
+        private final int nodes;
+        private final int[] head;
+        private int[] to;
+        private int[] next;
+        private int[] cap;
+        private long[] cost;
+        private int edges;
+
+        MinCostFlow(int nodes, int expectedEdges) {
+            this.nodes = nodes;
+            this.head = new int[nodes];
+            Arrays.fill(head, -1);
+            int size = Math.max(16, expectedEdges * 2);
+            this.to = new int[size];
+            this.next = new int[size];
+            this.cap = new int[size];
+            this.cost = new long[size];
+        }
+
+        void addEdge(int from, int target, int capacity, long edgeCost) {
+            if (edges + 2 > to.length) {
+                int size = to.length * 2;
+                to = Arrays.copyOf(to, size);
+                next = Arrays.copyOf(next, size);
+                cap = Arrays.copyOf(cap, size);
+                cost = Arrays.copyOf(cost, size);
+            }
+            link(from, target, capacity, edgeCost);
+            link(target, from, 0, -edgeCost);
+        }
+
+        private void link(int from, int target, int capacity, long edgeCost) {
+            to[edges] = target;
+            cap[edges] = capacity;
+            cost[edges] = edgeCost;
+            next[edges] = head[from];
+            head[from] = edges++;
+        }
+
+        /** Augments until no path is left or the deadline passes; the flow so far is kept. */
+        void run(int source, int sink, long deadline) {
+            long[] potential = new long[nodes];
+            long[] dist = new long[nodes];
+            int[] viaEdge = new int[nodes];
+            PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+
+            while (System.nanoTime() < deadline) {
+                Arrays.fill(dist, INF);
+                Arrays.fill(viaEdge, -1);
+                dist[source] = 0;
+                queue.clear();
+                queue.add(new long[] {0, source});
+                while (!queue.isEmpty()) {
+                    long[] top = queue.poll();
+                    int u = (int) top[1];
+                    if (top[0] > dist[u]) {
+                        continue;
+                    }
+                    for (int e = head[u]; e != -1; e = next[e]) {
+                        if (cap[e] <= 0) {
+                            continue;
+                        }
+                        int v = to[e];
+                        long candidate = dist[u] + cost[e] + potential[u] - potential[v];
+                        if (candidate < dist[v]) {
+                            dist[v] = candidate;
+                            viaEdge[v] = e;
+                            queue.add(new long[] {candidate, v});
+                        }
+                    }
+                }
+                if (dist[sink] >= INF) {
+                    return;
+                }
+                for (int v = 0; v < nodes; v++) {
+                    if (dist[v] < INF) {
+                        potential[v] += dist[v];
+                    }
+                }
+
+                int bottleneck = Integer.MAX_VALUE;
+                for (int v = sink; v != source; v = to[viaEdge[v] ^ 1]) {
+                    bottleneck = Math.min(bottleneck, cap[viaEdge[v]]);
+                }
+                for (int v = sink; v != source; v = to[viaEdge[v] ^ 1]) {
+                    cap[viaEdge[v]] -= bottleneck;
+                    cap[viaEdge[v] ^ 1] += bottleneck;
+                }
+            }
+        }
+
+        /** The node in [from, to) that {@code node} sends flow to, or -1. */
+        int matchedNode(int node, int fromNode, int toNode) {
+            for (int e = head[node]; e != -1; e = next[e]) {
+                // Forward edges sit at even indices and are saturated once used
+                if ((e & 1) == 0 && cap[e] == 0 && to[e] >= fromNode && to[e] < toNode) {
+                    return to[e];
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.hangout.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The application's {@link PasswordEncoder}. BCrypt work runs on a small dedicated pool with a
+ * bounded queue, so a burst of logins or registrations uses at most {@code threads} cores and
+ * holds at most {@code threads + queue-size} request threads. Anything beyond that is turned
+ * away immediately with {@link BusyException} instead of waiting.
+ */
+@Service
+public class PasswordHashingService implements PasswordEncoder {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${hangout.security.bcrypt.strength:10}")
+    private int strength;
+
+    @Value("${hangout.security.hashing.threads:2}")
+    private int threads;
+
+    @Value("${hangout.security.hashing.queue-size:50}")
+    private int queueSize;
+
+    @Value("${hangout.security.hashing.max-wait:2s}")
+    private Duration maxWait;
+
+    private BCryptPasswordEncoder bcrypt;
+    private ThreadPoolExecutor executor;
+
+    private Timer hashTimer;
+    private Counter rejected;
+
+    @PostConstruct
+    public void start() {
+        bcrypt = new BCryptPasswordEncoder(strength);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        hashTimer = Timer.builder("hangout.security.password.hash")
+                .description("BCrypt encode/verify time on the hashing pool")
+                .tag("strength", String.valueOf(strength))
+                .register(meterRegistry);
+        rejected = Counter.builder("hangout.security.password.rejected")
+                .description("Hashing requests turned away because the pool was saturated")
+                .register(meterRegistry);
+        Gauge.builder("hangout.security.password.strength", () -> strength).register(meterRegistry);
+        Gauge.builder("hangout.security.password.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        Gauge.builder("hangout.security.password.queued", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> bcrypt.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> bcrypt.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return bcrypt.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Callable<T> work) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> hashTimer.recordCallable(work));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new BusyException();
+        }
+
+        try {
+            return future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new BusyException();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusyException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public long getRetryAfterSeconds() {
+        return Math.max(1, maxWait.toSeconds());
+    }
+
+    /** The hashing pool and its queue are full. */
+    public static class BusyException extends RuntimeException {
+        public BusyException() {
+            super("Password hashing capacity exhausted");
+        }
+    }
+}
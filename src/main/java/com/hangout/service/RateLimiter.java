@@ -0,0 +1,185 @@
+package com.hangout.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets for the anonymous write endpoints, one per rule and key (a client IP or an event
+ * id). Each rule allows {@code capacity} requests in a burst, refilled evenly over {@code period};
+ * both are set with hangout.ratelimit.&lt;rule&gt;.capacity / .period.
+ *
+ * <p>A bucket is a single AtomicLong updated with compare-and-set, so taking a token never locks.
+ * Buckets live in a bounded Caffeine cache per rule (itself striped, so unrelated keys do not
+ * contend) and are evicted after one idle period, when they would be full again anyway.
+ */
+@Service
+public class RateLimiter {
+
+    public enum Rule {
+        /** Login, registration and token refresh, per client IP. */
+        AUTH(10, Duration.ofMinutes(1)),
+        /** RSVP submissions, per client IP. */
+        RSVP(30, Duration.ofMinutes(1)),
+        /** Joining and leaving cars, per client IP. */
+        CARPOOL(30, Duration.ofMinutes(1)),
+        /** RSVP and car changes to one event from everyone together, per event id. */
+        EVENT_WRITES(600, Duration.ofMinutes(1));
+
+        private final int defaultCapacity;
+        private final Duration defaultPeriod;
+
+        Rule(int defaultCapacity, Duration defaultPeriod) {
+            this.defaultCapacity = defaultCapacity;
+            this.defaultPeriod = defaultPeriod;
+        }
+
+        public String propertyName() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${hangout.ratelimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hangout.ratelimit.max-keys:100000}")
+    private long maxKeys;
+
+    private final Map<Rule, Limit> limits = new EnumMap<>(Rule.class);
+
+    @PostConstruct
+    public void init() {
+        for (Rule rule : Rule.values()) {
+            String prefix = "hangout.ratelimit." + rule.propertyName();
+            int capacity = environment.getProperty(prefix + ".capacity", Integer.class, rule.defaultCapacity);
+            Duration period = environment.getProperty(prefix + ".period", Duration.class, rule.defaultPeriod);
+            limits.put(rule, new Limit(rule, capacity, period));
+        }
+    }
+
+    /**
+     * Takes a token for {@code key}. Returns 0 if the request may go ahead, otherwise how many
+     * milliseconds until the next token is available.
+     */
+    public long tryAcquire(Rule rule, Object key) {
+        if (!enabled) {
+            return 0;
+        }
+        return limits.get(rule).tryAcquire(String.valueOf(key));
+    }
+
+    /** Like {@link #tryAcquire} but throws a 429 {@link LimitedException} when out of tokens. */
+    public void check(Rule rule, Object key) {
+        long waitMillis = tryAcquire(rule, key);
+        if (waitMillis > 0) {
+            throw new LimitedException(retryAfterSeconds(waitMillis));
+        }
+    }
+
+    public static long retryAfterSeconds(long waitMillis) {
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMillis + 999));
+    }
+
+    private class Limit {
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final Cache<String, Bucket> buckets;
+        private final Counter allowed;
+        private final Counter limited;
+
+        Limit(Rule rule, int capacity, Duration period) {
+            this.intervalNanos = period.toNanos() / capacity;
+            this.burstNanos = intervalNanos * capacity;
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxKeys)
+                    .expireAfterAccess(period)
+                    .build();
+
+            String name = rule.propertyName();
+            allowed = Counter.builder("hangout.ratelimit.requests")
+                    .tag("rule", name).tag("outcome", "allowed")
+                    .register(meterRegistry);
+            limited = Counter.builder("hangout.ratelimit.requests")
+                    .tag("rule", name).tag("outcome", "limited")
+                    .register(meterRegistry);
+            Gauge.builder("hangout.ratelimit.keys", buckets, Cache::estimatedSize)
+                    .description("Rate limit buckets currently tracked")
+                    .tag("rule", name)
+                    .register(meterRegistry);
+        }
+
+        long tryAcquire(String key) {
+            long waitNanos = buckets.get(key, k -> new Bucket()).tryAcquire(System.nanoTime(), intervalNanos, burstNanos);
+            if (waitNanos == 0) {
+                allowed.increment();
+                return 0;
+            }
+            limited.increment();
+            return Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+    }
+
+    /**
+     * Token bucket kept as the time at which it will be full again (the generic cell rate
+     * algorithm): each request pushes that time one interval further, and a request is refused
+     * if that would put it more than {@code capacity} intervals ahead of now.
+     */
+    static class Bucket {
+        private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+        /** Returns 0 if a token was taken, otherwise the nanoseconds until one is available. */
+        long tryAcquire(long now, long intervalNanos, long burstNanos) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + intervalNanos;
+                long ahead = next - now;
+                if (ahead > burstNanos) {
+                    return ahead - burstNanos;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+
+    /** Out of tokens; answered with 429 Too Many Requests and a Retry-After header. */
+    public static class LimitedException extends ResponseStatusException {
+        private final long retryAfterSeconds;
+
+        public LimitedException(long retryAfterSeconds) {
+            super(HttpStatus.TOO_MANY_REQUESTS, "Too many requests, please slow down");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,519 @@
+package com.hangout.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.hangout.model.Event;
+import com.hangout.model.Rsvp;
+import com.hangout.repository.EventRepository;
+import com.hangout.repository.RsvpRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk RSVP upserts from a CSV or NDJSON upload. The body is parsed while it streams in and
+ * written in batches of {@code batch-size}: one lookup of the batch's existing emails, batched
+ * inserts and updates, and one counter update, each batch in its own transaction. The persistence
+ * context is cleared after every batch, so memory stays flat however long the file is.
+ */
+@Service
+public class RsvpImportService {
+
+    public static final String CSV = "text/csv";
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_FIELD_LENGTH = 1000;
+    private static final int MAX_LINE_LENGTH = 8192;
+    // Past this many written RSVPs, one rebuild after the import is cheaper than the changes
+    private static final int MAX_INCREMENTAL_CHANGES = 1000;
+    // Length of the rsvps VARCHAR columns
+    private static final int MAX_COLUMN_LENGTH = 255;
+
+    @Autowired
+    private RsvpRepository rsvpRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EventCounterService eventCounterService;
+
+    @Autowired
+    private CarpoolRecomputeScheduler carpoolRecomputeScheduler;
+
+    @Autowired
+    private EventStreamService eventStreamService;
+
+    @Autowired
+    private RsvpWriteMetrics rsvpWriteMetrics;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${hangout.rsvps.import.batch-size:500}")
+    private int batchSize;
+
+    private ObjectReader rowReader;
+
+    @PostConstruct
+    public void init() {
+        rowReader = objectMapper.readerFor(Row.class);
+    }
+
+    /**
+     * Imports every valid row; invalid rows are skipped and reported. A guest that already has an
+     * RSVP for the event is updated, as with {@code POST /api/rsvps}. If the event assigns
+     * carpools automatically, the written RSVPs are queued as one set of changes once the import
+     * ends, or as a rebuild if there are more than {@value #MAX_INCREMENTAL_CHANGES} of them.
+     */
+    public ImportResult importRsvps(Event event, InputStream body, boolean csv, Charset charset) throws IOException {
+        Long eventId = event.getId();
+        ImportResult result = new ImportResult();
+        Map<String, Row> batch = new LinkedHashMap<>();
+        Map<Long, CarpoolService.RsvpSnapshot> carpoolChanges = new LinkedHashMap<>();
+
+        // Batches that committed before a failure still reach the carpools
+        try {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, charset))) {
+                RowSource rows = csv ? new CsvRowSource(reader) : new NdjsonRowSource(reader);
+                Row row;
+                while ((row = rows.next()) != null) {
+                    String error = row.error != null ? row.error : row.validate();
+                    if (error != null) {
+                        result.reject(row.line, error);
+                        continue;
+                    }
+                    // The same guest twice in one batch: the later row wins and the guest is counted once
+                    batch.put(row.guestEmail, row);
+                    if (batch.size() >= batchSize) {
+                        writeBatch(event, batch.values(), result, carpoolChanges);
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(event, batch.values(), result, carpoolChanges);
+            }
+        } finally {
+            queueCarpoolChanges(eventId, carpoolChanges);
+        }
+
+        int written = result.created + result.updated;
+        if (written > 0) {
+            rsvpWriteMetrics.recordWrites(eventId, written);
+            eventStreamService.publish(eventId, "rsvp", Map.of("action", "imported", "count", written));
+        }
+        return result;
+    }
+
+    private void writeBatch(Event event, Collection<Row> rows, ImportResult result,
+                            Map<Long, CarpoolService.RsvpSnapshot> carpoolChanges) {
+        Long eventId = event.getId();
+        BatchWrite written;
+        try {
+            written = transactionTemplate.execute(status -> upsert(eventId, rows));
+        } catch (DataIntegrityViolationException e) {
+            if (!RsvpRepository.isDuplicateGuest(e)) {
+                throw e;
+            }
+            // A guest RSVP'd on their own while the batch was written; the retry finds their row
+            entityManager.clear();
+            written = transactionTemplate.execute(status -> upsert(eventId, rows));
+        }
+        entityManager.clear();
+        result.created += written.created;
+        result.updated += rows.size() - written.created;
+
+        // Collected rather than queued per batch, so no carpool run starts halfway through the file;
+        // the first snapshot of a guest written twice is the one from before the import
+        if (event.getCarpoolMode() == Event.CarpoolMode.AUTO && carpoolChanges.size() <= MAX_INCREMENTAL_CHANGES) {
+            written.changes.forEach(carpoolChanges::putIfAbsent);
+        }
+    }
+
+    private void queueCarpoolChanges(Long eventId, Map<Long, CarpoolService.RsvpSnapshot> changes) {
+        if (changes.size() > MAX_INCREMENTAL_CHANGES) {
+            carpoolRecomputeScheduler.requestRebuild(eventId);
+        } else if (!changes.isEmpty()) {
+            carpoolRecomputeScheduler.submitChanges(eventId, changes);
+        }
+    }
+
+    private BatchWrite upsert(Long eventId, Collection<Row> rows) {
+        List<String> emails = rows.stream().map(row -> row.guestEmail).collect(Collectors.toList());
+        Map<String, Rsvp> existing = rsvpRepository.findByEventIdAndGuestEmailIn(eventId, emails).stream()
+                .collect(Collectors.toMap(Rsvp::getGuestEmail, Function.identity()));
+
+        Event event = eventRepository.getReferenceById(eventId);
+        EventCounterService.RsvpCountDelta counts = new EventCounterService.RsvpCountDelta();
+        List<Rsvp> toSave = new ArrayList<>(rows.size());
+        List<CarpoolService.RsvpSnapshot> previousSnapshots = new ArrayList<>(rows.size());
+        BatchWrite written = new BatchWrite();
+        for (Row row : rows) {
+            Rsvp rsvp = existing.get(row.guestEmail);
+            Rsvp.RsvpStatus previous = null;
+            if (rsvp == null) {
+                rsvp = new Rsvp();
+                rsvp.setEvent(event);
+                rsvp.setGuestName(row.guestName);
+                rsvp.setGuestEmail(row.guestEmail);
+                previousSnapshots.add(CarpoolService.RsvpSnapshot.NONE);
+                written.created++;
+            } else {
+                previous = rsvp.getStatus();
+                previousSnapshots.add(CarpoolService.RsvpSnapshot.of(rsvp));
+                rsvp.setRespondedAt(LocalDateTime.now());
+            }
+            rsvp.setStatus(row.parsedStatus);
+            rsvp.setMessage(row.message);
+            rsvp.setIsDriver(row.isDriver);
+            rsvp.setArrivalTime(row.arrivalTime);
+            rsvp.setSeats(row.seats);
+            counts.add(previous, rsvp.getStatus());
+            toSave.add(rsvp);
+        }
+
+        List<Rsvp> saved = rsvpRepository.saveAll(toSave);
+        for (int i = 0; i < saved.size(); i++) {
+            written.changes.put(saved.get(i).getId(), previousSnapshots.get(i));
+        }
+        eventCounterService.rsvpCountsChanged(eventId, counts);
+        eventRepository.bumpDataVersion(eventId);
+        return written;
+    }
+
+    private static class BatchWrite {
+        int created;
+        // Each written RSVP's state before the import, for the carpool engine
+        final Map<Long, CarpoolService.RsvpSnapshot> changes = new LinkedHashMap<>();
+    }
+
+    private interface RowSource {
+        /** The next row, possibly carrying a parse error; null at the end of the input. */
+        Row next() throws IOException;
+    }
+
+    /** One JSON object per line, with the same fields as {@code POST /api/rsvps}. */
+    private class NdjsonRowSource implements RowSource {
+        private final BufferedReader reader;
+        private int line;
+        private boolean lineTooLong;
+
+        NdjsonRowSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Row next() throws IOException {
+            String text;
+            do {
+                text = nextLine();
+                line++;
+                if (text == null) {
+                    return null;
+                }
+            } while (text.isBlank());
+
+            Row row;
+            if (lineTooLong) {
+                row = new Row();
+                row.error = "Line longer than " + MAX_LINE_LENGTH + " characters";
+            } else {
+                try {
+                    row = rowReader.readValue(text);
+                } catch (IOException e) {
+                    row = new Row();
+                    row.error = "Not a valid JSON object";
+                }
+            }
+            row.line = line;
+            return row;
+        }
+
+        // Like readLine, but keeps at most MAX_LINE_LENGTH characters of a line in memory
+        private String nextLine() throws IOException {
+            StringBuilder text = new StringBuilder();
+            lineTooLong = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                if (c == '\n') {
+                    break;
+                }
+                if (c == '\r') {
+                    continue;
+                }
+                if (text.length() < MAX_LINE_LENGTH) {
+                    text.append((char) c);
+                } else {
+                    lineTooLong = true;
+                }
+            }
+            return any ? text.toString() : null;
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header row. Columns are matched by name, ignoring case, spaces and
+     * underscores; {@code name} and {@code email} are accepted for the guest columns and unknown
+     * columns are ignored.
+     */
+    private static class CsvRowSource implements RowSource {
+        private final BufferedReader reader;
+        private int line = 1;
+        private boolean fieldTooLong;
+        private boolean recordTooLong;
+        private Map<String, Integer> columns;
+
+        CsvRowSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Row next() throws IOException {
+            if (columns == null) {
+                List<String> header = nextRecord();
+                if (header == null) {
+                    return null;
+                }
+                columns = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    columns.putIfAbsent(columnKey(header.get(i)), i);
+                }
+            }
+
+            int start;
+            List<String> record;
+            do {
+                start = line;
+                record = nextRecord();
+                if (record == null) {
+                    return null;
+                }
+            } while (record.size() == 1 && record.get(0).isBlank());
+
+            Row row = new Row();
+            row.line = start;
+            if (recordTooLong) {
+                row.error = "Record longer than " + MAX_LINE_LENGTH + " characters";
+                return row;
+            }
+            if (fieldTooLong) {
+                row.error = "Field longer than " + MAX_FIELD_LENGTH + " characters";
+                return row;
+            }
+            try {
+                row.guestName = field(record, "guestname", "name");
+                row.guestEmail = field(record, "guestemail", "email");
+                row.status = field(record, "status");
+                row.message = field(record, "message");
+                String isDriver = field(record, "isdriver", "driver");
+                row.isDriver = isDriver != null ? Boolean.valueOf(isDriver) : null;
+                String arrivalTime = field(record, "arrivaltime");
+                row.arrivalTime = arrivalTime != null ? LocalDateTime.parse(arrivalTime) : null;
+                String seats = field(record, "seats");
+                row.seats = seats != null ? Integer.valueOf(seats) : null;
+            } catch (DateTimeParseException e) {
+                row.error = "arrivalTime must look like 2024-06-01T18:30:00";
+            } catch (NumberFormatException e) {
+                row.error = "seats must be a whole number";
+            }
+            return row;
+        }
+
+        private String field(List<String> record, String... names) {
+            for (String name : names) {
+                Integer index = columns.get(name);
+                if (index != null && index < record.size()) {
+                    String value = record.get(index).trim();
+                    return value.isEmpty() ? null : value;
+                }
+            }
+            return null;
+        }
+
+        private static String columnKey(String header) {
+            return header.replaceAll("[\\s_\\-]", "").toLowerCase(Locale.ROOT);
+        }
+
+        // Quoted fields may contain commas, doubled quotes and line breaks. Like an NDJSON line, a
+        // record keeps at most MAX_LINE_LENGTH characters, which also bounds its number of fields
+        private List<String> nextRecord() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            fieldTooLong = false;
+            recordTooLong = false;
+            boolean quoted = false;
+            boolean any = false;
+            int length = 0;
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                if (++length > MAX_LINE_LENGTH) {
+                    recordTooLong = true;
+                }
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int next = reader.read();
+                        if (next == '"') {
+                            append(field, '"');
+                        } else {
+                            quoted = false;
+                            if (next != -1) {
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        append(field, (char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    if (!recordTooLong) {
+                        fields.add(field.toString());
+                    }
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    line++;
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    append(field, (char) c);
+                }
+            }
+            if (!any) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        private void append(StringBuilder field, char c) {
+            if (recordTooLong) {
+                return;
+            }
+            if (field.length() < MAX_FIELD_LENGTH) {
+                field.append(c);
+            } else {
+                fieldTooLong = true;
+            }
+        }
+    }
+
+    /** One guest as read from the file; {@code status} is matched ignoring case. */
+    public static class Row {
+        private int line;
+        private String error;
+        private Rsvp.RsvpStatus parsedStatus;
+
+        private String guestName;
+        private String guestEmail;
+        private String status;
+        private String message;
+        private Boolean isDriver;
+        private LocalDateTime arrivalTime;
+        private Integer seats;
+
+        private String validate() {
+            if (guestName == null || guestName.isBlank()) {
+                return "guestName is required";
+            }
+            if (guestEmail == null || guestEmail.isBlank()) {
+                return "guestEmail is required";
+            }
+            guestName = guestName.trim();
+            guestEmail = guestEmail.trim();
+            if (guestName.length() > MAX_COLUMN_LENGTH) {
+                return "guestName is longer than " + MAX_COLUMN_LENGTH + " characters";
+            }
+            if (guestEmail.length() > MAX_COLUMN_LENGTH) {
+                return "guestEmail is longer than " + MAX_COLUMN_LENGTH + " characters";
+            }
+            if (message != null && message.length() > MAX_COLUMN_LENGTH) {
+                return "message is longer than " + MAX_COLUMN_LENGTH + " characters";
+            }
+            if (status == null) {
+                return "status is required";
+            }
+            try {
+                parsedStatus = Rsvp.RsvpStatus.valueOf(status.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return "status must be YES, MAYBE or NO";
+            }
+            return null;
+        }
+
+        public void setGuestName(String guestName) { this.guestName = guestName; }
+        public void setGuestEmail(String guestEmail) { this.guestEmail = guestEmail; }
+        public void setStatus(String status) { this.status = status; }
+        public void setMessage(String message) { this.message = message; }
+        public void setIsDriver(Boolean isDriver) { this.isDriver = isDriver; }
+        public void setArrivalTime(LocalDateTime arrivalTime) { this.arrivalTime = arrivalTime; }
+        public void setSeats(Integer seats) { this.seats = seats; }
+    }
+
+    public static class ImportResult {
+        private int created;
+        private int updated;
+        private int rejected;
+        private final List<String> errors = new ArrayList<>();
+
+        private void reject(int line, String error) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + line + ": " + error);
+            }
+        }
+
+        public int getCreated() {
+            return created;
+        }
+
+        public int getUpdated() {
+            return updated;
+        }
+
+        public int getRejected() {
+            return rejected;
+        }
+
+        // The first 100 rejected rows
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.hangout.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * hangout.rsvp.writes, tagged by event id. Only events with recent writes keep a series: one idle
+ * for hangout.metrics.rsvp-writes.idle-expiry is removed from the registry, and past max-events
+ * the cache's size eviction (which favours recently and frequently written events) makes room,
+ * so the series follow the events that are busy now rather than the first ones seen. A removed
+ * series starts again from zero, which Prometheus treats as a counter reset.
+ */
+@Service
+public class RsvpWriteMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${hangout.metrics.rsvp-writes.max-events:200}")
+    private long maxEvents;
+
+    @Value("${hangout.metrics.rsvp-writes.idle-expiry:1h}")
+    private Duration idleExpiry;
+
+    private Cache<Long, Counter> counters;
+
+    @PostConstruct
+    public void init() {
+        counters = Caffeine.newBuilder()
+                .maximumSize(maxEvents)
+                .expireAfterAccess(idleExpiry)
+                // Runs as part of the eviction, so it cannot remove a series re-registered for the same event
+                .<Long, Counter>evictionListener((eventId, counter, cause) -> {
+                    if (counter != null) {
+                        meterRegistry.remove(counter);
+                    }
+                })
+                .build();
+    }
+
+    public void recordWrites(Long eventId, int writes) {
+        counters.get(eventId, id -> Counter.builder("hangout.rsvp.writes")
+                        .description("RSVP writes per event")
+                        .tag("event", String.valueOf(id))
+                        .register(meterRegistry))
+                .increment(writes);
+    }
+}
@@ -0,0 +1,83 @@
+package com.hangout.service;
+
+import com.hangout.model.Driver;
+import com.hangout.model.Rsvp;
+import com.hangout.repository.DriverRepository;
+import com.hangout.repository.EventRepository;
+import com.hangout.repository.RsvpRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Joining and leaving cars without read-check-write races. A seat is taken with a single
+ * conditional UPDATE on drivers.seats_taken, so two guests racing for the last seat cannot
+ * both get it. No explicit locks are taken; the UPDATE's own row lock lasts only for this
+ * short transaction. Both methods touch the car's counter before the RSVP. An incremental carpool
+ * run seats guests the same way, so a join during a run only waits for it on a car the run has
+ * already written to, or one whose driver it is changing; a rebuild locks every car of the event.
+ */
+@Service
+public class SeatReservationService {
+
+    public enum JoinResult {
+        JOINED, FULL, CONFLICT
+    }
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private RsvpRepository rsvpRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EventCounterService eventCounterService;
+
+    @Transactional
+    public JoinResult joinCar(Driver driver, Rsvp rsvp) {
+        Driver current = rsvp.getDriver();
+        if (current != null && current.getId().equals(driver.getId())) {
+            return JoinResult.JOINED;
+        }
+
+        if (driverRepository.reserveSeat(driver.getId()) == 0) {
+            return JoinResult.FULL;
+        }
+
+        int moved = current == null
+                ? rsvpRepository.assignDriverIfUnassigned(rsvp.getId(), driver)
+                : rsvpRepository.moveToDriver(rsvp.getId(), current, driver);
+        if (moved == 0) {
+            // The RSVP changed cars under us; give the seat back
+            driverRepository.releaseSeat(driver.getId());
+            return JoinResult.CONFLICT;
+        }
+
+        if (current != null) {
+            driverRepository.releaseSeat(current.getId());
+        } else {
+            eventCounterService.seatsChanged(driver.getEvent().getId(), 0, 1);
+        }
+        eventRepository.bumpDataVersion(driver.getEvent().getId());
+        return JoinResult.JOINED;
+    }
+
+    /** Returns false if the guest was not in this car. */
+    @Transactional
+    public boolean leaveCar(Long driverId, Rsvp rsvp) {
+        int released = driverRepository.releaseSeat(driverId);
+        if (rsvpRepository.unassignDriver(rsvp.getId(), driverId) == 0) {
+            // Not in this car after all; take the seat back
+            if (released > 0) {
+                driverRepository.reserveSeat(driverId);
+            }
+            return false;
+        }
+        eventCounterService.seatsChanged(rsvp.getEvent().getId(), 0, -1);
+        eventRepository.bumpDataVersion(rsvp.getEvent().getId());
+        return true;
+    }
+}
@@ -0,0 +1,167 @@
+package com.hangout.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Signed tokens for the stateless ({@code hangout.security.mode=token}) mode. Tokens are compact
+ * HS256 JWTs carrying the user's email and role, so any node holding the shared secret can
+ * verify a request without a session or a database lookup.
+ */
+@Service
+public class TokenService {
+
+    public static final String ACCESS = "access";
+    public static final String REFRESH = "refresh";
+
+    private static final String HEADER = base64Url("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${hangout.security.mode:session}")
+    private String mode;
+
+    @Value("${hangout.security.token.secret:}")
+    private String secret;
+
+    @Value("${hangout.security.token.access-ttl:15m}")
+    private Duration accessTtl;
+
+    @Value("${hangout.security.token.refresh-ttl:14d}")
+    private Duration refreshTtl;
+
+    private SecretKeySpec key;
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length < 32) {
+            throw new IllegalStateException(
+                    "hangout.security.token.secret must be set to at least 32 bytes when hangout.security.mode=token");
+        }
+        key = new SecretKeySpec(secretBytes, "HmacSHA256");
+    }
+
+    public boolean isEnabled() {
+        return "token".equalsIgnoreCase(mode);
+    }
+
+    public String issueAccessToken(UserIdentityCache.UserIdentity user) {
+        return issue(user, ACCESS, accessTtl);
+    }
+
+    public String issueRefreshToken(UserIdentityCache.UserIdentity user) {
+        return issue(user, REFRESH, refreshTtl);
+    }
+
+    public Duration getAccessTtl() {
+        return accessTtl;
+    }
+
+    /** Returns the claims if the token is well formed, correctly signed, of the given type and not expired. */
+    public Optional<Claims> verify(String token, String expectedType) {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3 || !HEADER.equals(parts[0])) {
+            return Optional.empty();
+        }
+
+        byte[] expected = sign(parts[0] + "." + parts[1]);
+        byte[] actual;
+        try {
+            actual = Base64.getUrlDecoder().decode(parts[2]);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return Optional.empty();
+        }
+
+        Map<?, ?> payload;
+        try {
+            payload = objectMapper.readValue(Base64.getUrlDecoder().decode(parts[1]), Map.class);
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+        if (!expectedType.equals(payload.get("typ"))
+                || !(payload.get("exp") instanceof Number exp)
+                || Instant.now().getEpochSecond() >= exp.longValue()) {
+            return Optional.empty();
+        }
+        return Optional.of(new Claims((String) payload.get("sub"), (String) payload.get("role")));
+    }
+
+    private String issue(UserIdentityCache.UserIdentity user, String type, Duration ttl) {
+        Instant now = Instant.now();
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("sub", user.getEmail());
+        payload.put("role", user.getRole());
+        payload.put("typ", type);
+        payload.put("iat", now.getEpochSecond());
+        payload.put("exp", now.plus(ttl).getEpochSecond());
+
+        String body;
+        try {
+            body = base64Url(objectMapper.writeValueAsBytes(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        String unsigned = HEADER + "." + body;
+        return unsigned + "." + base64Url(sign(unsigned));
+    }
+
+    private byte[] sign(String data) {
+        if (key == null) {
+            throw new IllegalStateException("Token mode is not enabled");
+        }
+        try {
+            // Mac instances are not thread-safe and cheap to create
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac.doFinal(data.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public static class Claims {
+        private final String subject;
+        private final String role;
+
+        public Claims(String subject, String role) {
+            this.subject = subject;
+            this.role = role;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public String getRole() {
+            return role;
+        }
+    }
+}
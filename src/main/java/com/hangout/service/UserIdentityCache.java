@@ -0,0 +1,84 @@
+package com.hangout.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hangout.model.User;
+import com.hangout.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded, TTL-evicting cache of who a principal is, keyed by email. Sits in front of
+ * UserRepository.findByEmail so authenticated requests can resolve the caller without a
+ * database round trip. Unknown emails are not cached.
+ */
+@Service
+public class UserIdentityCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${hangout.users.cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${hangout.users.cache.ttl:5m}")
+    private Duration ttl;
+
+    private Cache<String, UserIdentity> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user-identities");
+    }
+
+    public Optional<UserIdentity> findByEmail(String email) {
+        return Optional.ofNullable(cache.get(email,
+                key -> userRepository.findByEmail(key).map(UserIdentity::of).orElse(null)));
+    }
+
+    /** Must be called whenever a user's email, name, role or password changes. */
+    public void invalidate(String email) {
+        cache.invalidate(email);
+    }
+
+    public static class UserIdentity {
+        private final Long id;
+        private final String email;
+        private final String name;
+        private final String role;
+        private final String passwordHash;
+
+        private UserIdentity(Long id, String email, String name, String role, String passwordHash) {
+            this.id = id;
+            this.email = email;
+            this.name = name;
+            this.role = role;
+            this.passwordHash = passwordHash;
+        }
+
+        public static UserIdentity of(User user) {
+            return new UserIdentity(user.getId(), user.getEmail(), user.getName(), user.getRole(), user.getPassword());
+        }
+
+        public Long getId() { return id; }
+        public String getEmail() { return email; }
+        public String getName() { return name; }
+        public String getRole() { return role; }
+        public String getPasswordHash() { return passwordHash; }
+    }
+}
@@ -0,0 +1,72 @@
+-- Baseline schema. H2 is only used in-memory (dev, benchmarks), so this always runs on an empty database.
+
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE events_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE drivers_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE rsvps_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE users (
+    id          BIGINT       NOT NULL PRIMARY KEY,
+    email       VARCHAR(255) NOT NULL,
+    name        VARCHAR(255) NOT NULL,
+    password    VARCHAR(255) NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL,
+    role        VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE events (
+    id                 BIGINT        NOT NULL PRIMARY KEY,
+    title              VARCHAR(255)  NOT NULL,
+    description        VARCHAR(1000),
+    event_date         TIMESTAMP(6)  NOT NULL,
+    location           VARCHAR(255)  NOT NULL,
+    organizer_id       BIGINT,
+    organizer_name     VARCHAR(255),
+    organizer_email    VARCHAR(255),
+    created_at         TIMESTAMP(6)  NOT NULL,
+    carpool_mode       VARCHAR(255)  NOT NULL,
+    carpool_algorithm  VARCHAR(255),
+    data_version       BIGINT        DEFAULT 0 NOT NULL,
+    CONSTRAINT fk_events_organizer FOREIGN KEY (organizer_id) REFERENCES users (id)
+);
+
+CREATE TABLE drivers (
+    id              BIGINT       NOT NULL PRIMARY KEY,
+    event_id        BIGINT       NOT NULL,
+    driver_name     VARCHAR(255) NOT NULL,
+    driver_email    VARCHAR(255) NOT NULL,
+    departure_time  TIMESTAMP(6) NOT NULL,
+    capacity        INTEGER      NOT NULL,
+    car_details     VARCHAR(255),
+    seats_taken     INTEGER      DEFAULT 0 NOT NULL,
+    created_at      TIMESTAMP(6) NOT NULL,
+    CONSTRAINT fk_drivers_event FOREIGN KEY (event_id) REFERENCES events (id)
+);
+
+CREATE TABLE rsvps (
+    id            BIGINT       NOT NULL PRIMARY KEY,
+    event_id      BIGINT       NOT NULL,
+    guest_name    VARCHAR(255) NOT NULL,
+    guest_email   VARCHAR(255) NOT NULL,
+    status        VARCHAR(255) NOT NULL,
+    message       VARCHAR(255),
+    is_driver     BOOLEAN,
+    arrival_time  TIMESTAMP(6),
+    seats         INTEGER,
+    driver_id     BIGINT,
+    responded_at  TIMESTAMP(6) NOT NULL,
+    CONSTRAINT fk_rsvps_event FOREIGN KEY (event_id) REFERENCES events (id),
+    CONSTRAINT fk_rsvps_driver FOREIGN KEY (driver_id) REFERENCES drivers (id)
+);
+
+-- Event feed: organizer branch of the UNION
+CREATE INDEX idx_events_organizer_date ON events (organizer_id, event_date);
+-- Event feed: RSVP branch of the UNION
+CREATE INDEX idx_rsvps_guest_email_event ON rsvps (guest_email, event_id);
+-- One RSVP per guest per event; also serves RSVP lookups and lists by event
+CREATE UNIQUE INDEX ux_rsvps_event_guest_email ON rsvps (event_id, guest_email);
+-- Passengers of a car, oldest first
+CREATE INDEX idx_rsvps_driver_responded ON rsvps (driver_id, responded_at);
+-- Drivers of an event in departure order
+CREATE INDEX idx_drivers_event_departure ON drivers (event_id, departure_time);
@@ -0,0 +1,114 @@
+-- Baseline schema. Databases created before migrations existed were built by ddl-auto=update and
+-- are baselined at version 0, so this script runs on them too: everything is IF NOT EXISTS, and
+-- columns added to the entities over time are added separately.
+
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS events_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS drivers_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS rsvps_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS users (
+    id          BIGINT       NOT NULL PRIMARY KEY,
+    email       VARCHAR(255) NOT NULL,
+    name        VARCHAR(255) NOT NULL,
+    password    VARCHAR(255) NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL,
+    role        VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS events (
+    id                 BIGINT        NOT NULL PRIMARY KEY,
+    title              VARCHAR(255)  NOT NULL,
+    description        VARCHAR(1000),
+    event_date         TIMESTAMP(6)  NOT NULL,
+    location           VARCHAR(255)  NOT NULL,
+    organizer_id       BIGINT,
+    organizer_name     VARCHAR(255),
+    organizer_email    VARCHAR(255),
+    created_at         TIMESTAMP(6)  NOT NULL,
+    carpool_mode       VARCHAR(255)  NOT NULL,
+    CONSTRAINT fk_events_organizer FOREIGN KEY (organizer_id) REFERENCES users (id)
+);
+
+CREATE TABLE IF NOT EXISTS drivers (
+    id              BIGINT       NOT NULL PRIMARY KEY,
+    event_id        BIGINT       NOT NULL,
+    driver_name     VARCHAR(255) NOT NULL,
+    driver_email    VARCHAR(255) NOT NULL,
+    departure_time  TIMESTAMP(6) NOT NULL,
+    capacity        INTEGER      NOT NULL,
+    car_details     VARCHAR(255),
+    created_at      TIMESTAMP(6) NOT NULL,
+    CONSTRAINT fk_drivers_event FOREIGN KEY (event_id) REFERENCES events (id)
+);
+
+CREATE TABLE IF NOT EXISTS rsvps (
+    id            BIGINT       NOT NULL PRIMARY KEY,
+    event_id      BIGINT       NOT NULL,
+    guest_name    VARCHAR(255) NOT NULL,
+    guest_email   VARCHAR(255) NOT NULL,
+    status        VARCHAR(255) NOT NULL,
+    message       VARCHAR(255),
+    is_driver     BOOLEAN,
+    arrival_time  TIMESTAMP(6),
+    seats         INTEGER,
+    driver_id     BIGINT,
+    responded_at  TIMESTAMP(6) NOT NULL,
+    CONSTRAINT fk_rsvps_event FOREIGN KEY (event_id) REFERENCES events (id),
+    CONSTRAINT fk_rsvps_driver FOREIGN KEY (driver_id) REFERENCES drivers (id)
+);
+
+-- Columns that ddl-auto added to older databases one by one
+ALTER TABLE events ADD COLUMN IF NOT EXISTS carpool_algorithm VARCHAR(255);
+ALTER TABLE events ADD COLUMN IF NOT EXISTS data_version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE drivers ADD COLUMN IF NOT EXISTS seats_taken INTEGER DEFAULT 0 NOT NULL;
+
+-- Tables that ddl-auto created carry generated foreign key names; rename them to match the ones above
+DO $$
+DECLARE
+    fk RECORD;
+BEGIN
+    FOR fk IN
+        SELECT c.conrelid::regclass AS table_name, c.conname, wanted.name
+        FROM pg_constraint c
+        JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[1]
+        JOIN (VALUES ('events', 'organizer_id', 'fk_events_organizer'),
+                     ('drivers', 'event_id', 'fk_drivers_event'),
+                     ('rsvps', 'event_id', 'fk_rsvps_event'),
+                     ('rsvps', 'driver_id', 'fk_rsvps_driver')) AS wanted (table_name, column_name, name)
+            ON c.conrelid = wanted.table_name::regclass AND a.attname = wanted.column_name
+        WHERE c.contype = 'f' AND c.conname <> wanted.name
+    LOOP
+        EXECUTE format('ALTER TABLE %s RENAME CONSTRAINT %I TO %I', fk.table_name, fk.conname, fk.name);
+    END LOOP;
+END $$;
+
+-- Older databases used identity columns; move every sequence past the ids already handed out
+SELECT setval('users_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM users), 1));
+SELECT setval('events_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM events), 1));
+SELECT setval('drivers_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM drivers), 1));
+SELECT setval('rsvps_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM rsvps), 1));
+
+-- Concurrent first RSVPs could create duplicates before the unique index; keep the latest one
+DELETE FROM rsvps older USING rsvps newer
+WHERE older.event_id = newer.event_id
+  AND older.guest_email = newer.guest_email
+  AND older.id < newer.id;
+
+-- seats_taken was added with a default of 0; count the passengers actually in each car
+UPDATE drivers d SET seats_taken = (SELECT COUNT(*) FROM rsvps r WHERE r.driver_id = d.id);
+
+-- Superseded by the unique index below
+DROP INDEX IF EXISTS idx_rsvps_event_guest_email;
+
+-- Event feed: organizer branch of the UNION
+CREATE INDEX IF NOT EXISTS idx_events_organizer_date ON events (organizer_id, event_date);
+-- Event feed: RSVP branch of the UNION
+CREATE INDEX IF NOT EXISTS idx_rsvps_guest_email_event ON rsvps (guest_email, event_id);
+-- One RSVP per guest per event; also serves RSVP lookups and lists by event
+CREATE UNIQUE INDEX IF NOT EXISTS ux_rsvps_event_guest_email ON rsvps (event_id, guest_email);
+-- Passengers of a car, oldest first
+CREATE INDEX IF NOT EXISTS idx_rsvps_driver_responded ON rsvps (driver_id, responded_at);
+-- Drivers of an event in departure order
+CREATE INDEX IF NOT EXISTS idx_drivers_event_departure ON drivers (event_id, departure_time);
@@ -0,0 +1,14 @@
+-- Per-event RSVP and seat counters, kept up to date with delta updates and reconciled periodically
+
+ALTER TABLE events ADD COLUMN yes_count INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE events ADD COLUMN maybe_count INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE events ADD COLUMN no_count INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE events ADD COLUMN seats_total INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE events ADD COLUMN seats_taken INTEGER DEFAULT 0 NOT NULL;
+
+UPDATE events SET
+    yes_count = (SELECT COUNT(*) FROM rsvps r WHERE r.event_id = events.id AND r.status = 'YES'),
+    maybe_count = (SELECT COUNT(*) FROM rsvps r WHERE r.event_id = events.id AND r.status = 'MAYBE'),
+    no_count = (SELECT COUNT(*) FROM rsvps r WHERE r.event_id = events.id AND r.status = 'NO'),
+    seats_total = (SELECT COALESCE(SUM(d.capacity), 0) FROM drivers d WHERE d.event_id = events.id),
+    seats_taken = (SELECT COALESCE(SUM(d.seats_taken), 0) FROM drivers d WHERE d.event_id = events.id);
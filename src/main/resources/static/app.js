@@ -6,6 +6,54 @@ const API_URL = window.location.hostname === 'localhost'
 // Authentication state
 let currentUser = null;
 
+// In token mode (stateless profile) login returns signed tokens instead of starting a session
+let accessToken = localStorage.getItem('accessToken');
+let refreshToken = localStorage.getItem('refreshToken');
+
+function storeTokens(tokens) {
+    accessToken = tokens.accessToken || null;
+    refreshToken = tokens.refreshToken || null;
+    if (accessToken) {
+        localStorage.setItem('accessToken', accessToken);
+        localStorage.setItem('refreshToken', refreshToken);
+    } else {
+        localStorage.removeItem('accessToken');
+        localStorage.removeItem('refreshToken');
+    }
+}
+
+async function refreshAccessToken() {
+    try {
+        const response = await fetch(`${API_URL}/auth/refresh`, {
+            method: 'POST',
+            headers: {'Content-Type': 'application/json'},
+            body: JSON.stringify({refreshToken})
+        });
+        storeTokens(response.ok ? await response.json() : {});
+        return response.ok;
+    } catch (error) {
+        console.error('Token refresh failed:', error);
+        return false;
+    }
+}
+
+function withAuth(options) {
+    const headers = {...(options.headers || {})};
+    if (accessToken) {
+        headers['Authorization'] = `Bearer ${accessToken}`;
+    }
+    return {credentials: 'include', ...options, headers};
+}
+
+// fetch() for API calls: sends the access token if we have one and refreshes it once on 401
+async function apiFetch(url, options = {}) {
+    const response = await fetch(url, withAuth(options));
+    if (response.status === 401 && refreshToken && await refreshAccessToken()) {
+        return fetch(url, withAuth(options));
+    }
+    return response;
+}
+
 // Check auth on page load
 window.addEventListener('DOMContentLoaded', async () => {
     await checkAuth();
@@ -13,9 +61,7 @@ window.addEventListener('DOMContentLoaded', async () => {
 
 async function checkAuth() {
     try {
-        const response = await fetch(`${API_URL}/auth/me`, {
-            credentials: 'include'
-        });
+        const response = await apiFetch(`${API_URL}/auth/me`);
         if (response.ok) {
             currentUser = await response.json();
             updateUIForAuthState(true);
@@ -85,6 +131,7 @@ async function login(email, password) {
         });
 
         if (response.ok) {
+            storeTokens(await response.json());
             await checkAuth();
             closeAuthModal();
             alert('Login successful!');
@@ -123,10 +170,10 @@ async function register(name, email, password) {
 // Logout function
 async function logout() {
     try {
-        await fetch(`${API_URL}/auth/logout`, {
-            method: 'POST',
-            credentials: 'include'
+        await apiFetch(`${API_URL}/auth/logout`, {
+            method: 'POST'
         });
+        storeTokens({});
         currentUser = null;
         updateUIForAuthState(false);
         showTab('events');
@@ -159,14 +206,18 @@ function showTab(tabName, event) {
     }
 }
 
-async function loadEvents() {
+async function loadEvents(cursor) {
     try {
-        const response = await fetch(`${API_URL}/events`);
-        const events = await response.json();
+        const url = cursor
+            ? `${API_URL}/events?cursor=${encodeURIComponent(cursor)}`
+            : `${API_URL}/events`;
+        const response = await apiFetch(url);
+        const page = await response.json();
+        const events = page.items;
 
         const eventsList = document.getElementById('events-list');
 
-        if (events.length === 0) {
+        if (!cursor && events.length === 0) {
             eventsList.innerHTML = `
                 <div class="empty-state">
                     <p>No events yet.</p>
@@ -176,7 +227,7 @@ async function loadEvents() {
             return;
         }
 
-        eventsList.innerHTML = events.map(event => {
+        const cards = events.map(event => {
             const eventDate = new Date(event.eventDate);
             return `
                 <div class="event-card" onclick="showEventDetails(${event.id})">
@@ -186,84 +237,48 @@ async function loadEvents() {
                         <span>📅 ${eventDate.toLocaleDateString()} ${eventDate.toLocaleTimeString()}</span>
                         <span>📍 ${event.location}</span>
                         <span>👤 ${event.organizerName}</span>
+                        <span>✅ ${event.yesCount} going · ${event.maybeCount} maybe · ${event.noCount} can't</span>
                     </div>
                 </div>
             `;
         }).join('');
+
+        const loadMore = page.nextCursor
+            ? `<div id="load-more-events" style="text-align: center; margin-top: 20px;">
+                   <button onclick="loadMoreEvents('${page.nextCursor}')" class="btn btn-primary">Load more</button>
+               </div>`
+            : '';
+
+        if (cursor) {
+            const previousButton = document.getElementById('load-more-events');
+            if (previousButton) previousButton.remove();
+            eventsList.insertAdjacentHTML('beforeend', cards + loadMore);
+        } else {
+            eventsList.innerHTML = cards + loadMore;
+        }
     } catch (error) {
         console.error('Error loading events:', error);
     }
 }
 
+function loadMoreEvents(cursor) {
+    loadEvents(cursor);
+}
+
 async function showEventDetails(eventId) {
     try {
         window.history.pushState({eventId}, '', `?event=${eventId}`);
 
-        const [eventResponse, rsvpsResponse, driversResponse] = await Promise.all([
-            fetch(`${API_URL}/events/${eventId}`),
-            fetch(`${API_URL}/rsvps/event/${eventId}`),
-            fetch(`${API_URL}/drivers/event/${eventId}`)
-        ]);
+        const response = await apiFetch(`${API_URL}/events/${eventId}/full`);
 
-        const event = await eventResponse.json();
-        const rsvps = await rsvpsResponse.json();
-        const drivers = await driversResponse.json();
-
-        const eventDate = new Date(event.eventDate);
-
-        const yesCount = rsvps.filter(r => r.status === 'YES').length;
-        const noCount = rsvps.filter(r => r.status === 'NO').length;
-        const maybeCount = rsvps.filter(r => r.status === 'MAYBE').length;
-
-        const shareUrl = `${window.location.origin}/?event=${event.id}`;
+        const event = await response.json();
+        const rsvps = event.rsvps;
+        const drivers = event.drivers;
 
         document.getElementById('home-view').style.display = 'none';
         document.getElementById('event-view').style.display = 'block';
 
-        document.getElementById('event-details').innerHTML = `
-            <header>
-                <h1>${event.title}</h1>
-                <p>${event.description || 'No description'}</p>
-            </header>
-
-            <div class="event-info">
-                <div class="info-item">
-                    <strong>📅 Date & Time:</strong>
-                    <span>${eventDate.toLocaleDateString()} at ${eventDate.toLocaleTimeString()}</span>
-                </div>
-                <div class="info-item">
-                    <strong>📍 Location:</strong>
-                    <span>${event.location}</span>
-                </div>
-                <div class="info-item">
-                    <strong>👤 Organizer:</strong>
-                    <span>${event.organizerName} (${event.organizerEmail})</span>
-                </div>
-            </div>
-
-            <div class="share-link-container">
-                <label><strong>Share this event:</strong></label>
-                <div class="share-link-box">
-                    <input type="text" id="share-url" value="${shareUrl}" readonly>
-                    <button class="btn btn-primary" onclick="copyShareLink()">Copy Link</button>
-                </div>
-            </div>
-
-            <div class="rsvp-stats">
-                <div class="stat">
-                    <div class="stat-value">${yesCount}</div>
-                    <div class="stat-label">Attending</div>
-                </div>
-                <div class="stat">
-                    <div class="stat-value">${maybeCount}</div>
-                    <div class="stat-label">Maybe</div>
-                </div>
-                <div class="stat">
-                    <div class="stat-value">${noCount}</div>
-                    <div class="stat-label">Not Attending</div>
-                </div>
-            </div>
-        `;
+        document.getElementById('event-details').innerHTML = renderEventSummary(event, rsvps);
 
         const carpoolFields = event.carpoolMode === 'AUTO' ? `
             <div class="carpool-required-notice">
@@ -341,60 +356,10 @@ async function showEventDetails(eventId) {
                 </div>
             ` : ''}
 
-            ${event.carpoolMode !== 'NONE' ? `
-                <div id="drivers-list">
-                    <h3>${event.carpoolMode === 'AUTO' ? 'Carpool Assignments' : 'Available Rides'} (${drivers.length})</h3>
-                    ${drivers.length === 0 ? `<p class="empty-state">${event.carpoolMode === 'AUTO' ? 'No carpools assigned yet. RSVP to get assigned!' : 'No drivers yet. Be the first to offer a ride!'}</p>` :
-                        drivers.map(driver => `
-                            <div class="driver-card">
-                                <div class="driver-header">
-                                    <h4>🚗 ${driver.driverName}</h4>
-                                    <span class="departure-time">Leaving: ${new Date(driver.departureTime).toLocaleString()}</span>
-                                </div>
-                                ${driver.carDetails ? `<p class="car-details">${driver.carDetails}</p>` : ''}
-                                <div class="passenger-info">
-                                    <span class="seats-available">${driver.spotsAvailable} of ${driver.capacity} seats available</span>
-                                    ${driver.passengers.length > 0 ? `
-                                        <div class="passengers-list">
-                                            <strong>Passengers:</strong>
-                                            <ul>
-                                                ${driver.passengers.map(p => `<li>${p.name}</li>`).join('')}
-                                            </ul>
-                                        </div>
-                                    ` : ''}
-                                </div>
-                                ${event.carpoolMode === 'MANUAL' ? `
-                                    <div class="driver-actions">
-                                        <input type="email" id="join-email-${driver.id}" placeholder="Your email" class="join-email-input">
-                                        <button onclick="joinCar(${driver.id}, ${eventId})" class="btn btn-success btn-sm" ${driver.spotsAvailable === 0 ? 'disabled' : ''}>
-                                            Join This Ride
-                                        </button>
-                                        <button onclick="leaveCar(${driver.id}, ${eventId})" class="btn btn-danger btn-sm">
-                                            Leave Ride
-                                        </button>
-                                    </div>
-                                ` : ''}
-                            </div>
-                        `).join('')
-                    }
-                </div>
-            ` : ''}
+            ${event.carpoolMode !== 'NONE' ? renderDriversList(event, drivers) : ''}
         `;
 
-        document.getElementById('rsvps-list').innerHTML = `
-            <h3>Responses (${rsvps.length})</h3>
-            ${rsvps.length === 0 ? '<p class="empty-state">No responses yet</p>' :
-                rsvps.map(rsvp => `
-                    <div class="rsvp-item ${rsvp.status.toLowerCase()}">
-                        <h4>${rsvp.guestName} - ${rsvp.status === 'YES' ? 'Attending' : rsvp.status === 'MAYBE' ? 'Maybe' : 'Not Attending'}</h4>
-                        ${rsvp.message ? `<p>${rsvp.message}</p>` : ''}
-                        <p style="font-size: 0.8em; margin-top: 5px;">
-                            Responded: ${new Date(rsvp.respondedAt).toLocaleString()}
-                        </p>
-                    </div>
-                `).join('')
-            }
-        `;
+        document.getElementById('rsvps-list').innerHTML = renderRsvpsList(rsvps);
 
         // Apply 15-minute rounding to dynamically created datetime inputs
         const arrivalTimeInput = document.getElementById('arrivalTime');
@@ -407,13 +372,205 @@ async function showEventDetails(eventId) {
             roundToNearest15(departureTimeInput);
         }
 
+        subscribeToEvent(eventId);
+
         window.scrollTo(0, 0);
     } catch (error) {
         console.error('Error loading event details:', error);
     }
 }
 
+function renderEventSummary(event, rsvps) {
+    const eventDate = new Date(event.eventDate);
+
+    const yesCount = rsvps.filter(r => r.status === 'YES').length;
+    const noCount = rsvps.filter(r => r.status === 'NO').length;
+    const maybeCount = rsvps.filter(r => r.status === 'MAYBE').length;
+
+    const shareUrl = `${window.location.origin}/?event=${event.id}`;
+
+    return `
+        <header>
+            <h1>${event.title}</h1>
+            <p>${event.description || 'No description'}</p>
+        </header>
+
+        <div class="event-info">
+            <div class="info-item">
+                <strong>📅 Date & Time:</strong>
+                <span>${eventDate.toLocaleDateString()} at ${eventDate.toLocaleTimeString()}</span>
+            </div>
+            <div class="info-item">
+                <strong>📍 Location:</strong>
+                <span>${event.location}</span>
+            </div>
+            <div class="info-item">
+                <strong>👤 Organizer:</strong>
+                <span>${event.organizerName} (${event.organizerEmail})</span>
+            </div>
+        </div>
+
+        <div class="share-link-container">
+            <label><strong>Share this event:</strong></label>
+            <div class="share-link-box">
+                <input type="text" id="share-url" value="${shareUrl}" readonly>
+                <button class="btn btn-primary" onclick="copyShareLink()">Copy Link</button>
+            </div>
+        </div>
+
+        <div class="rsvp-stats">
+            <div class="stat">
+                <div class="stat-value">${yesCount}</div>
+                <div class="stat-label">Attending</div>
+            </div>
+            <div class="stat">
+                <div class="stat-value">${maybeCount}</div>
+                <div class="stat-label">Maybe</div>
+            </div>
+            <div class="stat">
+                <div class="stat-value">${noCount}</div>
+                <div class="stat-label">Not Attending</div>
+            </div>
+        </div>
+    `;
+}
+
+function renderDriversList(event, drivers) {
+    return `
+        <div id="drivers-list">
+            <h3>${event.carpoolMode === 'AUTO' ? 'Carpool Assignments' : 'Available Rides'} (${drivers.length})</h3>
+            ${drivers.length === 0 ? `<p class="empty-state">${event.carpoolMode === 'AUTO' ? 'No carpools assigned yet. RSVP to get assigned!' : 'No drivers yet. Be the first to offer a ride!'}</p>` :
+                drivers.map(driver => `
+                    <div class="driver-card">
+                        <div class="driver-header">
+                            <h4>🚗 ${driver.driverName}</h4>
+                            <span class="departure-time">Leaving: ${new Date(driver.departureTime).toLocaleString()}</span>
+                        </div>
+                        ${driver.carDetails ? `<p class="car-details">${driver.carDetails}</p>` : ''}
+                        <div class="passenger-info">
+                            <span class="seats-available">${driver.spotsAvailable} of ${driver.capacity} seats available</span>
+                            ${driver.passengers.length > 0 ? `
+                                <div class="passengers-list">
+                                    <strong>Passengers:</strong>
+                                    <ul>
+                                        ${driver.passengers.map(p => `<li>${p.name}</li>`).join('')}
+                                    </ul>
+                                </div>
+                            ` : ''}
+                        </div>
+                        ${event.carpoolMode === 'MANUAL' ? `
+                            <div class="driver-actions">
+                                <input type="email" id="join-email-${driver.id}" placeholder="Your email" class="join-email-input">
+                                <button onclick="joinCar(${driver.id}, ${event.id})" class="btn btn-success btn-sm" ${driver.spotsAvailable === 0 ? 'disabled' : ''}>
+                                    Join This Ride
+                                </button>
+                                <button onclick="leaveCar(${driver.id}, ${event.id})" class="btn btn-danger btn-sm">
+                                    Leave Ride
+                                </button>
+                            </div>
+                        ` : ''}
+                    </div>
+                `).join('')
+            }
+        </div>
+    `;
+}
+
+function renderRsvpsList(rsvps) {
+    return `
+        <h3>Responses (${rsvps.length})</h3>
+        ${rsvps.length === 0 ? '<p class="empty-state">No responses yet</p>' :
+            rsvps.map(rsvp => `
+                <div class="rsvp-item ${rsvp.status.toLowerCase()}">
+                    <h4>${rsvp.guestName} - ${rsvp.status === 'YES' ? 'Attending' : rsvp.status === 'MAYBE' ? 'Maybe' : 'Not Attending'}</h4>
+                    ${rsvp.message ? `<p>${rsvp.message}</p>` : ''}
+                    <p style="font-size: 0.8em; margin-top: 5px;">
+                        Responded: ${new Date(rsvp.respondedAt).toLocaleString()}
+                    </p>
+                </div>
+            `).join('')
+        }
+    `;
+}
+
+// Live updates: the server pushes a small delta whenever the event changes, and we
+// re-render the read-only parts of the page (the RSVP and driver forms are left alone).
+let eventStream = null;
+let eventStreamId = null;
+let eventRefreshTimer = null;
+
+function subscribeToEvent(eventId) {
+    if (eventStream && eventStreamId === eventId) {
+        return;
+    }
+    unsubscribeFromEvent();
+
+    eventStreamId = eventId;
+    // EventSource cannot send headers, so in token mode the access token goes in the URL
+    const tokenParam = accessToken ? `?access_token=${encodeURIComponent(accessToken)}` : '';
+    eventStream = new EventSource(`${API_URL}/events/${eventId}/stream${tokenParam}`);
+    eventStream.onerror = async () => {
+        // A rejected (e.g. expired) token closes the stream for good; refresh and reconnect
+        if (eventStream && eventStream.readyState === EventSource.CLOSED && refreshToken
+                && await refreshAccessToken() && eventStreamId === eventId) {
+            eventStream = null;
+            subscribeToEvent(eventId);
+        }
+    };
+    ['rsvp', 'driver', 'carpools', 'event'].forEach(type => {
+        eventStream.addEventListener(type, (message) => {
+            const delta = JSON.parse(message.data);
+            if (type === 'event' && delta.action === 'deleted') {
+                goHome();
+                return;
+            }
+            scheduleEventRefresh(eventId);
+        });
+    });
+}
+
+function unsubscribeFromEvent() {
+    if (eventStream) {
+        eventStream.close();
+    }
+    eventStream = null;
+    eventStreamId = null;
+    clearTimeout(eventRefreshTimer);
+}
+
+function scheduleEventRefresh(eventId) {
+    // Several deltas usually arrive together (RSVP, then the carpool run); refresh once
+    clearTimeout(eventRefreshTimer);
+    eventRefreshTimer = setTimeout(() => refreshEventDetails(eventId), 250);
+}
+
+async function refreshEventDetails(eventId) {
+    try {
+        const response = await apiFetch(`${API_URL}/events/${eventId}/full`);
+        if (!response.ok || eventStreamId !== eventId) return;
+
+        const event = await response.json();
+        document.getElementById('event-details').innerHTML = renderEventSummary(event, event.rsvps);
+        document.getElementById('rsvps-list').innerHTML = renderRsvpsList(event.rsvps);
+
+        const driversList = document.getElementById('drivers-list');
+        if (driversList && event.carpoolMode !== 'NONE') {
+            // Keep anything typed into the join-ride boxes
+            const typed = {};
+            driversList.querySelectorAll('.join-email-input').forEach(input => typed[input.id] = input.value);
+            driversList.outerHTML = renderDriversList(event, event.drivers);
+            Object.entries(typed).forEach(([id, value]) => {
+                const input = document.getElementById(id);
+                if (input) input.value = value;
+            });
+        }
+    } catch (error) {
+        console.error('Error refreshing event details:', error);
+    }
+}
+
 function goHome() {
+    unsubscribeFromEvent();
     document.getElementById('event-view').style.display = 'none';
     document.getElementById('home-view').style.display = 'block';
 
@@ -462,7 +619,7 @@ async function submitRsvp(event, eventId) {
     }
 
     try {
-        const response = await fetch(`${API_URL}/rsvps`, {
+        const response = await apiFetch(`${API_URL}/rsvps`, {
             method: 'POST',
             headers: {
                 'Content-Type': 'application/json'
@@ -471,6 +628,8 @@ async function submitRsvp(event, eventId) {
         });
 
         if (response.ok) {
+            // Carpools are recomputed in the background; the event stream refreshes the
+            // assignments once they land
             showEventDetails(eventId);
         } else {
             alert('Error submitting RSVP');
@@ -499,7 +658,7 @@ document.getElementById('create-event-form').addEventListener('submit', async (e
     };
 
     try {
-        const response = await fetch(`${API_URL}/events`, {
+        const response = await apiFetch(`${API_URL}/events`, {
             method: 'POST',
             headers: {
                 'Content-Type': 'application/json'
@@ -602,7 +761,7 @@ async function submitDriver(event, eventId) {
     };
 
     try {
-        const response = await fetch(`${API_URL}/drivers`, {
+        const response = await apiFetch(`${API_URL}/drivers`, {
             method: 'POST',
             headers: {
                 'Content-Type': 'application/json'
@@ -630,7 +789,7 @@ async function joinCar(driverId, eventId) {
     }
 
     try {
-        const response = await fetch(`${API_URL}/drivers/${driverId}/join`, {
+        const response = await apiFetch(`${API_URL}/drivers/${driverId}/join`, {
             method: 'POST',
             headers: {
                 'Content-Type': 'application/json'
@@ -658,7 +817,7 @@ async function leaveCar(driverId, eventId) {
     }
 
     try {
-        const response = await fetch(`${API_URL}/drivers/${driverId}/leave`, {
+        const response = await apiFetch(`${API_URL}/drivers/${driverId}/leave`, {
             method: 'POST',
             headers: {
                 'Content-Type': 'application/json'
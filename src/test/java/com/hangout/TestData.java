@@ -0,0 +1,62 @@
+package com.hangout;
+
+import com.hangout.model.Event;
+import com.hangout.model.Rsvp;
+import com.hangout.repository.EventRepository;
+import com.hangout.repository.RsvpRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Events and RSVPs for the tests. Every test makes its own event, so tests sharing the context's
+ * database do not see each other's rows.
+ */
+public final class TestData {
+
+    public static final LocalDateTime EVENT_DATE = LocalDateTime.of(2030, 6, 1, 18, 0);
+
+    private TestData() {
+    }
+
+    public static Event createEvent(EventRepository eventRepository, Event.CarpoolMode mode) {
+        Event event = new Event();
+        event.setTitle("Test event");
+        event.setEventDate(EVENT_DATE);
+        event.setLocation("Test park");
+        event.setCarpoolMode(mode);
+        return eventRepository.save(event);
+    }
+
+    /** Saves {@code count} YES RSVPs; every fifth guest drives with four seats. */
+    public static List<Rsvp> seedRsvps(RsvpRepository rsvpRepository, Event event, int count) {
+        List<Rsvp> rsvps = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rsvps.add(rsvp(event, i));
+        }
+        return rsvpRepository.saveAll(rsvps);
+    }
+
+    public static Rsvp rsvp(Event event, int i) {
+        Rsvp rsvp = new Rsvp();
+        rsvp.setEvent(event);
+        rsvp.setGuestName("Guest " + i);
+        rsvp.setGuestEmail("guest" + i + "@example.com");
+        rsvp.setStatus(Rsvp.RsvpStatus.YES);
+        rsvp.setArrivalTime(EVENT_DATE.minusMinutes(15L * ((i * 7L) % 16)));
+        rsvp.setIsDriver(i % 5 == 0);
+        rsvp.setSeats(4);
+        return rsvp;
+    }
+
+    /** Hibernate statistics, cleared; the test profile turns them on. */
+    public static Statistics clearedStatistics(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -0,0 +1,75 @@
+package com.hangout.controller;
+
+import com.hangout.TestData;
+import com.hangout.dto.DriverResponse;
+import com.hangout.model.Event;
+import com.hangout.repository.EventRepository;
+import com.hangout.repository.RsvpRepository;
+import com.hangout.service.CarpoolService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DriverControllerQueryCountTest {
+
+    @Autowired
+    private DriverController driverController;
+
+    @Autowired
+    private CarpoolService carpoolService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private RsvpRepository rsvpRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void getDriversByEventRunsTheSameQueriesForAnyNumberOfDrivers() {
+        Event small = seededEvent(10);
+        Event large = seededEvent(500);
+
+        Statistics statistics = TestData.clearedStatistics(entityManagerFactory);
+        List<DriverResponse> smallDrivers = getDrivers(small);
+        long smallStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        List<DriverResponse> largeDrivers = getDrivers(large);
+        long largeStatements = statistics.getPrepareStatementCount();
+
+        assertThat(smallDrivers).hasSize(2);
+        assertThat(largeDrivers).hasSize(100);
+        assertThat(largeDrivers).allSatisfy(driver -> assertThat(driver.getPassengers()).isNotEmpty());
+        // The data version for the ETag, then drivers and passengers in one projection query
+        assertThat(smallStatements).isEqualTo(2);
+        assertThat(largeStatements).isEqualTo(smallStatements);
+    }
+
+    private Event seededEvent(int rsvps) {
+        Event event = TestData.createEvent(eventRepository, Event.CarpoolMode.AUTO);
+        TestData.seedRsvps(rsvpRepository, event, rsvps);
+        carpoolService.autoAssignCarpools(event);
+        return event;
+    }
+
+    private List<DriverResponse> getDrivers(Event event) {
+        ResponseEntity<List<DriverResponse>> response = driverController.getDriversByEvent(
+                event.getId(), new ServletWebRequest(new MockHttpServletRequest()));
+        return response.getBody();
+    }
+}
@@ -0,0 +1,62 @@
+package com.hangout.controller;
+
+import com.hangout.TestData;
+import com.hangout.model.Event;
+import com.hangout.model.Rsvp;
+import com.hangout.repository.EventRepository;
+import com.hangout.repository.RsvpRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+/**
+ * Only the one-RSVP-per-guest unique index means "someone just RSVP'd with this email"; other
+ * constraint failures must not be reported as a conflict.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RsvpControllerIntegrityTest {
+
+    @Autowired
+    private RsvpController rsvpController;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private RsvpRepository rsvpRepository;
+
+    @Test
+    void duplicateGuestIsAConflict() {
+        Event event = TestData.createEvent(eventRepository, Event.CarpoolMode.MANUAL);
+        rsvpRepository.saveAndFlush(TestData.rsvp(event, 1));
+
+        DataIntegrityViolationException e = catchThrowableOfType(
+                () -> rsvpRepository.saveAndFlush(TestData.rsvp(event, 1)), DataIntegrityViolationException.class);
+
+        assertThat(RsvpRepository.isDuplicateGuest(e)).isTrue();
+        assertThat(rsvpController.integrityViolation(e).getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void fieldTooLongForItsColumnIsABadRequest() {
+        Event event = TestData.createEvent(eventRepository, Event.CarpoolMode.MANUAL);
+        RsvpController.RsvpRequest request = new RsvpController.RsvpRequest();
+        request.setEventId(event.getId());
+        request.setGuestName("x".repeat(300));
+        request.setGuestEmail("long@example.com");
+        request.setStatus(Rsvp.RsvpStatus.YES);
+
+        DataIntegrityViolationException e = catchThrowableOfType(
+                () -> rsvpController.createRsvp(request), DataIntegrityViolationException.class);
+
+        assertThat(RsvpRepository.isDuplicateGuest(e)).isFalse();
+        assertThat(rsvpController.integrityViolation(e).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+}
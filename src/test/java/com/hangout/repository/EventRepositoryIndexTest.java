@@ -0,0 +1,139 @@
+package com.hangout.repository;
+
+import com.hangout.TestData;
+import com.hangout.dto.EventCursor;
+import com.hangout.dto.EventSummary;
+import com.hangout.model.Event;
+import com.hangout.model.Rsvp;
+import com.hangout.model.User;
+import jakarta.persistence.NamedNativeQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The "my events" page must seek the organizer and guest-email indexes rather than scan, which
+ * is checked here against H2's EXPLAIN output.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class EventRepositoryIndexTest {
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private RsvpRepository rsvpRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private User user;
+    private List<Long> expectedIds;
+
+    @BeforeEach
+    void seed() {
+        String run = UUID.randomUUID().toString();
+        user = userRepository.save(user("me-" + run + "@example.com"));
+        expectedIds = new ArrayList<>();
+
+        // Enough other users' events and RSVPs that a scan would cost more than a seek
+        for (int u = 0; u < 20; u++) {
+            User other = userRepository.save(user("other" + u + "-" + run + "@example.com"));
+            for (int e = 0; e < 10; e++) {
+                Event event = event(other, e);
+                List<Rsvp> rsvps = new ArrayList<>();
+                for (int g = 0; g < 5; g++) {
+                    rsvps.add(rsvp(event, "guest" + g + "-" + run + "@example.com"));
+                }
+                // The user RSVPs to one event of every other organizer
+                if (e == 0) {
+                    rsvps.add(rsvp(event, user.getEmail()));
+                    expectedIds.add(event.getId());
+                }
+                rsvpRepository.saveAll(rsvps);
+            }
+        }
+        // Organizing an event and RSVPing to it must list it once
+        for (int e = 0; e < 3; e++) {
+            Event own = event(user, e);
+            expectedIds.add(own.getId());
+            if (e == 0) {
+                rsvpRepository.save(rsvp(own, user.getEmail()));
+            }
+        }
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void eventSummaryPageSeeksBothIndexes() {
+        String sql = Event.class.getAnnotation(NamedNativeQuery.class).query();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", user.getId())
+                .addValue("email", user.getEmail())
+                .addValue("notBefore", TestData.EVENT_DATE.minusYears(1))
+                .addValue("afterDate", EventCursor.START.getEventDate())
+                .addValue("afterId", EventCursor.START.getId())
+                .addValue("limit", 21);
+
+        String plan = String.join("\n",
+                namedParameterJdbcTemplate.queryForList("EXPLAIN " + sql, params, String.class));
+
+        assertThat(plan).contains("IDX_EVENTS_ORGANIZER_DATE");
+        assertThat(plan).contains("IDX_RSVPS_GUEST_EMAIL_EVENT");
+        assertThat(plan).doesNotContain("RSVPS.tableScan");
+    }
+
+    @Test
+    void eventSummaryPageListsOrganizedAndRsvpdEventsOnce() {
+        List<EventSummary> page = eventRepository.findEventSummaryPage(user.getId(), user.getEmail(),
+                TestData.EVENT_DATE.minusYears(1), EventCursor.START.getEventDate(), EventCursor.START.getId(), 100);
+
+        assertThat(page).extracting(EventSummary::getId).containsExactlyInAnyOrderElementsOf(expectedIds);
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setName(email);
+        user.setPassword("not-a-real-hash");
+        return user;
+    }
+
+    private Event event(User organizer, int i) {
+        Event event = new Event();
+        event.setTitle("Event " + i);
+        event.setEventDate(TestData.EVENT_DATE.plusDays(i));
+        event.setLocation("Test park");
+        event.setOrganizer(organizer);
+        event.setOrganizerName(organizer.getName());
+        event.setOrganizerEmail(organizer.getEmail());
+        return eventRepository.save(event);
+    }
+
+    private static Rsvp rsvp(Event event, String email) {
+        Rsvp rsvp = new Rsvp();
+        rsvp.setEvent(event);
+        rsvp.setGuestName(email);
+        rsvp.setGuestEmail(email);
+        rsvp.setStatus(Rsvp.RsvpStatus.YES);
+        return rsvp;
+    }
+}
@@ -0,0 +1,55 @@
+package com.hangout.service;
+
+import com.hangout.TestData;
+import com.hangout.model.Event;
+import com.hangout.model.Rsvp;
+import com.hangout.repository.EventRepository;
+import com.hangout.repository.RsvpRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AttendeeExportServiceTest {
+
+    @Autowired
+    private AttendeeExportService attendeeExportService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private RsvpRepository rsvpRepository;
+
+    @Test
+    void csvNeutralizesFormulasAndQuotesSpecialCharacters() throws Exception {
+        Event event = TestData.createEvent(eventRepository, Event.CarpoolMode.NONE);
+        saveWithMessage(event, 1, "=HYPERLINK(\"x\")");
+        saveWithMessage(event, 2, "\t=1+1");
+        saveWithMessage(event, 3, "\r@SUM(A1)");
+        saveWithMessage(event, 4, "See you, soon");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        attendeeExportService.csv(event.getId()).writeTo(out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertThat(lines[0]).startsWith("guestName,guestEmail,status,message,");
+        assertThat(lines[1]).contains(",\"'=HYPERLINK(\"\"x\"\")\",");
+        assertThat(lines[2]).contains(",'\t=1+1,");
+        assertThat(lines[3]).contains(",\"'\r@SUM(A1)\",");
+        assertThat(lines[4]).contains(",\"See you, soon\",");
+    }
+
+    private void saveWithMessage(Event event, int i, String message) {
+        Rsvp rsvp = TestData.rsvp(event, i);
+        rsvp.setMessage(message);
+        rsvpRepository.save(rsvp);
+    }
+}
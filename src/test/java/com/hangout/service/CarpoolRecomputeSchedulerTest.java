@@ -0,0 +1,218 @@
+package com.hangout.service;
+
+import com.hangout.model.Event;
+import com.hangout.model.Rsvp;
+import com.hangout.repository.EventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The scheduler with the carpool engine stubbed out: every run is recorded with the work it was
+ * handed, and a test decides which runs fail.
+ */
+class CarpoolRecomputeSchedulerTest {
+
+    private static final Long EVENT_ID = 7L;
+    private static final CarpoolService.RsvpSnapshot OLDER = CarpoolService.RsvpSnapshot.NONE;
+    private static final CarpoolService.RsvpSnapshot NEWER = snapshot(Rsvp.RsvpStatus.MAYBE);
+
+    private CarpoolRecomputeScheduler scheduler;
+    private CarpoolService carpoolService;
+    private SimpleMeterRegistry meterRegistry;
+    private final BlockingQueue<Run> runs = new LinkedBlockingQueue<>();
+    // Incremental runs with a number below this throw
+    private final AtomicInteger failingRuns = new AtomicInteger();
+    private final AtomicInteger incrementalRuns = new AtomicInteger();
+    private volatile CountDownLatch holdIncrementalRun;
+
+    @BeforeEach
+    void startScheduler() {
+        Event event = new Event();
+        event.setId(EVENT_ID);
+        event.setCarpoolMode(Event.CarpoolMode.AUTO);
+        EventRepository eventRepository = mock(EventRepository.class);
+        when(eventRepository.findById(anyLong())).thenReturn(Optional.of(event));
+
+        carpoolService = mock(CarpoolService.class);
+        doAnswer(invocation -> {
+            Map<Long, CarpoolService.RsvpSnapshot> changes = invocation.getArgument(1);
+            runs.add(new Run(false, new HashMap<>(changes)));
+            CountDownLatch hold = holdIncrementalRun;
+            if (hold != null) {
+                hold.await(5, TimeUnit.SECONDS);
+            }
+            if (incrementalRuns.incrementAndGet() <= failingRuns.get()) {
+                throw new IllegalStateException("Deadlock detected");
+            }
+            return null;
+        }).when(carpoolService).applyRsvpChanges(any(), anyMap());
+        doAnswer(invocation -> {
+            runs.add(new Run(true, Map.of()));
+            return null;
+        }).when(carpoolService).autoAssignCarpools(any());
+
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new CarpoolRecomputeScheduler();
+        ReflectionTestUtils.setField(scheduler, "carpoolService", carpoolService);
+        ReflectionTestUtils.setField(scheduler, "eventRepository", eventRepository);
+        ReflectionTestUtils.setField(scheduler, "eventStreamService", mock(EventStreamService.class));
+        ReflectionTestUtils.setField(scheduler, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(scheduler, "quietPeriodMs", 100L);
+        ReflectionTestUtils.setField(scheduler, "maxDelayMs", 300L);
+        ReflectionTestUtils.setField(scheduler, "threads", 2);
+        ReflectionTestUtils.setField(scheduler, "retryBackoffMs", 200L);
+        ReflectionTestUtils.setField(scheduler, "maxBackoffMs", 1000L);
+        ReflectionTestUtils.setField(scheduler, "rebuildAfterFailures", 3);
+        scheduler.start();
+    }
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.stop();
+    }
+
+    @Test
+    void changesInTheQuietPeriodCollapseIntoOneRunKeepingTheOldestSnapshot() throws Exception {
+        scheduler.submitChange(EVENT_ID, 1L, OLDER);
+        scheduler.submitChange(EVENT_ID, 2L, OLDER);
+        scheduler.submitChange(EVENT_ID, 1L, NEWER);
+
+        Run run = nextRun();
+        assertThat(run.rebuild).isFalse();
+        assertThat(run.changes).containsOnlyKeys(1L, 2L);
+        assertThat(run.changes.get(1L)).isSameAs(OLDER);
+        assertNoMoreRuns();
+        assertThat(scheduler.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void aSetOfChangesRunsOnceAndKeepsSnapshotsQueuedBeforeIt() throws Exception {
+        scheduler.submitChange(EVENT_ID, 1L, OLDER);
+        scheduler.submitChanges(EVENT_ID, Map.of(1L, NEWER, 2L, NEWER));
+
+        Run run = nextRun();
+        assertThat(run.changes).containsOnlyKeys(1L, 2L);
+        assertThat(run.changes.get(1L)).isSameAs(OLDER);
+        assertThat(run.changes.get(2L)).isSameAs(NEWER);
+        assertNoMoreRuns();
+    }
+
+    @Test
+    void aSteadyStreamOfChangesStillRunsWithinTheMaxDelay() throws Exception {
+        long start = System.currentTimeMillis();
+        long firstRunAt = 0;
+        // A change every 50 ms never leaves the 100 ms quiet period, so only max-delay-ms starts a run
+        for (long rsvpId = 1; System.currentTimeMillis() - start < 800; rsvpId++) {
+            scheduler.submitChange(EVENT_ID, rsvpId, OLDER);
+            if (firstRunAt == 0 && !runs.isEmpty()) {
+                firstRunAt = System.currentTimeMillis();
+            }
+            Thread.sleep(50);
+        }
+
+        assertThat(firstRunAt).isNotZero();
+        assertThat(firstRunAt - start).isLessThan(600);
+    }
+
+    @Test
+    void aFailedRunIsRetriedAfterTheBackoffWithItsOlderSnapshots() throws Exception {
+        failingRuns.set(1);
+        holdIncrementalRun = new CountDownLatch(1);
+        scheduler.submitChange(EVENT_ID, 1L, OLDER);
+
+        // While the doomed run is in progress, the same RSVP changes again
+        Run failed = nextRun();
+        scheduler.submitChange(EVENT_ID, 1L, NEWER);
+        scheduler.submitChange(EVENT_ID, 2L, NEWER);
+        long failedAt = System.currentTimeMillis();
+        holdIncrementalRun.countDown();
+
+        Run retried = nextRun();
+        long retriedAt = System.currentTimeMillis();
+        assertThat(failed.changes).containsOnlyKeys(1L);
+        assertThat(retried.rebuild).isFalse();
+        assertThat(retried.changes).containsOnlyKeys(1L, 2L);
+        // The failed run saw the RSVP as it was before any change, so that snapshot wins
+        assertThat(retried.changes.get(1L)).isSameAs(OLDER);
+        assertThat(retriedAt - failedAt).isGreaterThanOrEqualTo(150);
+        assertNoMoreRuns();
+        assertThat(meterRegistry.counter("hangout.carpool.recompute.failures").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void repeatedFailuresFallBackToARebuild() throws Exception {
+        ReflectionTestUtils.setField(scheduler, "retryBackoffMs", 20L);
+        failingRuns.set(Integer.MAX_VALUE);
+        scheduler.submitChange(EVENT_ID, 1L, OLDER);
+
+        assertThat(nextRun().rebuild).isFalse();
+        assertThat(nextRun().rebuild).isFalse();
+        assertThat(nextRun().rebuild).isFalse();
+        Run rebuild = nextRun();
+        assertThat(rebuild.rebuild).isTrue();
+        assertNoMoreRuns();
+        assertThat(meterRegistry.counter("hangout.carpool.recompute.failures").count()).isEqualTo(3.0);
+
+        // A successful rebuild clears the failures; the next change is incremental again
+        failingRuns.set(0);
+        scheduler.submitChange(EVENT_ID, 2L, OLDER);
+        assertThat(nextRun().rebuild).isFalse();
+    }
+
+    @Test
+    void aRebuildRequestSwallowsQueuedChanges() throws Exception {
+        scheduler.submitChange(EVENT_ID, 1L, OLDER);
+        scheduler.requestRebuild(EVENT_ID);
+
+        assertThat(nextRun().rebuild).isTrue();
+        assertNoMoreRuns();
+    }
+
+    private Run nextRun() throws InterruptedException {
+        Run run = runs.poll(5, TimeUnit.SECONDS);
+        assertThat(run).as("a carpool run").isNotNull();
+        return run;
+    }
+
+    private void assertNoMoreRuns() throws InterruptedException {
+        assertThat(runs.poll(600, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    private static CarpoolService.RsvpSnapshot snapshot(Rsvp.RsvpStatus status) {
+        Rsvp rsvp = new Rsvp();
+        rsvp.setStatus(status);
+        rsvp.setArrivalTime(LocalDateTime.of(2030, 6, 1, 17, 0));
+        return CarpoolService.RsvpSnapshot.of(rsvp);
+    }
+
+    private static class Run {
+        final boolean rebuild;
+        final Map<Long, CarpoolService.RsvpSnapshot> changes;
+
+        Run(boolean rebuild, Map<Long, CarpoolService.RsvpSnapshot> changes) {
+            this.rebuild = rebuild;
+            this.changes = changes;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.hangout.service;
+
+import com.hangout.TestData;
+import com.hangout.model.Event;
+import com.hangout.repository.DriverRepository;
+import com.hangout.repository.EventRepository;
+import com.hangout.repository.RsvpRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CarpoolServiceBatchingTest {
+
+    @Autowired
+    private CarpoolService carpoolService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private RsvpRepository rsvpRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void rebuildWritesDriversAndSeatsInBatches() {
+        Event event = TestData.createEvent(eventRepository, Event.CarpoolMode.AUTO);
+        TestData.seedRsvps(rsvpRepository, event, 500);
+
+        Statistics statistics = TestData.clearedStatistics(entityManagerFactory);
+        carpoolService.autoAssignCarpools(event);
+        long statements = statistics.getPrepareStatementCount();
+        long inserts = statistics.getEntityInsertCount();
+
+        // 100 driver inserts and several hundred RSVP and seat updates; one statement per row
+        // would be well over 600, batches of 50 plus the bulk statements stay in the tens
+        assertThat(inserts).isEqualTo(100);
+        assertThat(statements).isLessThan(40);
+        assertThat(driverRepository.findByEventIdOrderByDepartureTimeAsc(event.getId())).hasSize(100);
+    }
+
+    @Test
+    void rebuildStatementCountDoesNotGrowWithAttendees() {
+        Event small = TestData.createEvent(eventRepository, Event.CarpoolMode.AUTO);
+        TestData.seedRsvps(rsvpRepository, small, 50);
+        Event large = TestData.createEvent(eventRepository, Event.CarpoolMode.AUTO);
+        TestData.seedRsvps(rsvpRepository, large, 1000);
+
+        Statistics statistics = TestData.clearedStatistics(entityManagerFactory);
+        carpoolService.autoAssignCarpools(small);
+        long smallStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        carpoolService.autoAssignCarpools(large);
+        long largeStatements = statistics.getPrepareStatementCount();
+
+        // 20x the rows costs only the extra batches of 50 and sequence fetches
+        assertThat(largeStatements - smallStatements).isLessThan(60);
+    }
+}
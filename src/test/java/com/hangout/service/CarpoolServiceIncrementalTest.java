@@ -0,0 +1,152 @@
+package com.hangout.service;
+
+import com.hangout.TestData;
+import com.hangout.model.Driver;
+import com.hangout.model.Event;
+import com.hangout.model.Rsvp;
+import com.hangout.repository.DriverRepository;
+import com.hangout.repository.EventRepository;
+import com.hangout.repository.RsvpRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The incremental engine against the rows it leaves behind: every car's seats_taken and the
+ * event's seat counter must match the passengers actually sitting in the cars.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CarpoolServiceIncrementalTest {
+
+    private static final LocalDateTime EARLY = TestData.EVENT_DATE.minusHours(2);
+    private static final LocalDateTime LATE = TestData.EVENT_DATE.minusMinutes(30);
+
+    @Autowired
+    private CarpoolService carpoolService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private RsvpRepository rsvpRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    private int guests;
+
+    @Test
+    void driverDroppingOutWhileAPassengerChangesSeatsThePassengerOnce() {
+        Event event = TestData.createEvent(eventRepository, Event.CarpoolMode.AUTO);
+        Rsvp dropping = save(event, true, 4, EARLY);
+        save(event, true, 6, LATE);
+        Rsvp moving = save(event, false, null, EARLY);
+        save(event, false, null, EARLY);
+        carpoolService.autoAssignCarpools(event);
+        assertThat(driverOf(moving)).isEqualTo(driverOf(dropping));
+
+        // One coalesced batch: the driver stops driving and one of their passengers moves their arrival
+        dropping = reload(dropping);
+        moving = reload(moving);
+        Map<Long, CarpoolService.RsvpSnapshot> changes = new LinkedHashMap<>();
+        changes.put(dropping.getId(), CarpoolService.RsvpSnapshot.of(dropping));
+        dropping.setIsDriver(false);
+        rsvpRepository.save(dropping);
+        changes.put(moving.getId(), CarpoolService.RsvpSnapshot.of(moving));
+        moving.setArrivalTime(EARLY.plusMinutes(10));
+        rsvpRepository.save(moving);
+
+        carpoolService.applyRsvpChanges(event, changes);
+
+        List<Driver> cars = driverRepository.findByEventIdOrderByDepartureTimeAsc(event.getId());
+        assertThat(cars).hasSize(1);
+        // The remaining car's driver plus the three guests of the dropped car
+        assertThat(passengerCount(cars.get(0))).isEqualTo(4);
+        assertSeatsMatchPassengers(event);
+    }
+
+    @Test
+    void capacityCutWhileADisplacedPassengerChangesSeatsThemOnce() {
+        Event event = TestData.createEvent(eventRepository, Event.CarpoolMode.AUTO);
+        Rsvp shrinking = save(event, true, 4, EARLY);
+        save(event, true, 6, LATE);
+        save(event, false, null, EARLY);
+        save(event, false, null, EARLY);
+        Rsvp last = save(event, false, null, EARLY);
+        carpoolService.autoAssignCarpools(event);
+        assertThat(driverOf(last)).isEqualTo(driverOf(shrinking));
+
+        // Down to the driver's own seat: every passenger has to go, and one also changed their own RSVP
+        shrinking = reload(shrinking);
+        last = reload(last);
+        Map<Long, CarpoolService.RsvpSnapshot> changes = new LinkedHashMap<>();
+        changes.put(shrinking.getId(), CarpoolService.RsvpSnapshot.of(shrinking));
+        shrinking.setSeats(1);
+        rsvpRepository.save(shrinking);
+        changes.put(last.getId(), CarpoolService.RsvpSnapshot.of(last));
+        last.setArrivalTime(EARLY.plusMinutes(5));
+        rsvpRepository.save(last);
+
+        carpoolService.applyRsvpChanges(event, changes);
+
+        assertSeatsMatchPassengers(event);
+    }
+
+    @Test
+    void newPassengerTakesAFreeSeatAndLeavesTheRestAlone() {
+        Event event = TestData.createEvent(eventRepository, Event.CarpoolMode.AUTO);
+        save(event, true, 2, EARLY);
+        Rsvp seated = save(event, false, null, EARLY);
+        carpoolService.autoAssignCarpools(event);
+        Long seatedIn = driverOf(seated);
+
+        Rsvp joining = save(event, false, null, LATE);
+        carpoolService.applyRsvpChanges(event, Map.of(joining.getId(), CarpoolService.RsvpSnapshot.NONE));
+
+        // The car was already full, so the new guest waits and nobody is moved
+        assertThat(driverOf(seated)).isEqualTo(seatedIn);
+        assertThat(driverOf(joining)).isNull();
+        assertSeatsMatchPassengers(event);
+    }
+
+    private Rsvp save(Event event, boolean driver, Integer seats, LocalDateTime arrival) {
+        Rsvp rsvp = TestData.rsvp(event, ++guests);
+        rsvp.setIsDriver(driver);
+        rsvp.setSeats(seats);
+        rsvp.setArrivalTime(arrival);
+        return rsvpRepository.save(rsvp);
+    }
+
+    // The run assigned cars after these were saved; start from the rows as they are now
+    private Rsvp reload(Rsvp rsvp) {
+        return rsvpRepository.findById(rsvp.getId()).orElseThrow();
+    }
+
+    private Long driverOf(Rsvp rsvp) {
+        return rsvpRepository.findById(rsvp.getId()).map(Rsvp::getDriver).map(Driver::getId).orElse(null);
+    }
+
+    private int passengerCount(Driver car) {
+        return rsvpRepository.findByDriverIdOrderByRespondedAtAsc(car.getId()).size();
+    }
+
+    private void assertSeatsMatchPassengers(Event event) {
+        int seated = 0;
+        for (Driver car : driverRepository.findByEventIdOrderByDepartureTimeAsc(event.getId())) {
+            int passengers = passengerCount(car);
+            assertThat(car.getSeatsTaken()).as("seats_taken of car %d", car.getId()).isEqualTo(passengers);
+            assertThat(passengers).isLessThanOrEqualTo(car.getCapacity());
+            seated += passengers;
+        }
+        assertThat(eventRepository.findById(event.getId()).orElseThrow().getSeatsTaken()).isEqualTo(seated);
+    }
+}
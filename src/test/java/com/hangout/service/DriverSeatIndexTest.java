@@ -0,0 +1,97 @@
+package com.hangout.service;
+
+import com.hangout.model.Driver;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DriverSeatIndexTest {
+
+    private static final LocalDateTime FIVE = LocalDateTime.of(2030, 6, 1, 17, 0);
+    private static final LocalDateTime SIX = FIVE.plusHours(1);
+
+    @Test
+    void picksTheCarLeavingClosestToTheArrival() {
+        DriverSeatIndex seats = new DriverSeatIndex();
+        Driver early = car(1, FIVE, 4);
+        Driver late = car(2, SIX, 4);
+        seats.add(early, 0);
+        seats.add(late, 0);
+
+        assertThat(seats.reserveClosest(FIVE.minusHours(3))).isSameAs(early);
+        assertThat(seats.reserveClosest(FIVE.plusMinutes(20))).isSameAs(early);
+        assertThat(seats.reserveClosest(FIVE.plusMinutes(40))).isSameAs(late);
+        assertThat(seats.reserveClosest(SIX.plusHours(3))).isSameAs(late);
+    }
+
+    @Test
+    void tiesGoToTheEarlierDepartureThenTheLowestId() {
+        DriverSeatIndex seats = new DriverSeatIndex();
+        Driver highId = car(9, FIVE, 4);
+        Driver lowId = car(3, FIVE, 4);
+        Driver late = car(1, SIX, 4);
+        seats.add(highId, 0);
+        seats.add(late, 0);
+        seats.add(lowId, 0);
+
+        // Half way between the two departures
+        assertThat(seats.reserveClosest(FIVE.plusMinutes(30))).isSameAs(lowId);
+        assertThat(seats.reserveClosest(FIVE.plusMinutes(10))).isSameAs(lowId);
+        assertThat(seats.availableDrivers()).containsExactly(lowId, highId, late);
+    }
+
+    @Test
+    void fullCarsAreSkippedUntilASeatIsReleased() {
+        DriverSeatIndex seats = new DriverSeatIndex();
+        Driver near = car(1, FIVE, 2);
+        Driver far = car(2, SIX, 1);
+        seats.add(near, 1);
+        seats.add(far, 0);
+
+        assertThat(seats.reserveClosest(FIVE)).isSameAs(near);
+        assertThat(seats.remainingSeats(near)).isZero();
+        assertThat(seats.reserveClosest(FIVE)).isSameAs(far);
+        assertThat(seats.reserveClosest(FIVE)).isNull();
+        assertThat(seats.hasAvailableSeats()).isFalse();
+        assertThat(seats.reserve(near)).isFalse();
+
+        seats.release(near);
+        assertThat(seats.availableDrivers()).containsExactly(near);
+        assertThat(seats.reserveClosest(SIX)).isSameAs(near);
+    }
+
+    @Test
+    void readdingACarAfterACapacityChangeReplacesItsSlot() {
+        DriverSeatIndex seats = new DriverSeatIndex();
+        Driver driver = car(1, FIVE, 3);
+        seats.add(driver, 3);
+        assertThat(seats.hasAvailableSeats()).isFalse();
+
+        driver.setCapacity(5);
+        driver.setDepartureTime(SIX);
+        seats.add(driver, 3);
+        assertThat(seats.remainingSeats(driver)).isEqualTo(2);
+        assertThat(seats.availableDrivers()).containsExactly(driver);
+
+        driver.setCapacity(2);
+        seats.add(driver, 3);
+        assertThat(seats.remainingSeats(driver)).isNegative();
+        assertThat(seats.reserveClosest(SIX)).isNull();
+
+        seats.remove(driver);
+        assertThat(seats.remainingSeats(driver)).isZero();
+        assertThat(seats.reserve(driver)).isFalse();
+        seats.release(driver);
+        assertThat(seats.hasAvailableSeats()).isFalse();
+    }
+
+    static Driver car(long id, LocalDateTime departure, int capacity) {
+        Driver driver = new Driver();
+        driver.setId(id);
+        driver.setDepartureTime(departure);
+        driver.setCapacity(capacity);
+        return driver;
+    }
+}
@@ -0,0 +1,78 @@
+package com.hangout.service;
+
+import com.hangout.TestData;
+import com.hangout.model.Event;
+import com.hangout.model.Rsvp;
+import com.hangout.repository.EventRepository;
+import com.hangout.repository.RsvpRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class EventCounterServiceTest {
+
+    @Autowired
+    private EventCounterService eventCounterService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private RsvpRepository rsvpRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void deltaUpdatesFollowStatusChanges() {
+        Event event = TestData.createEvent(eventRepository, Event.CarpoolMode.NONE);
+        Rsvp rsvp = eventCounterService.saveRsvp(TestData.rsvp(event, 1), null);
+        eventCounterService.saveRsvp(TestData.rsvp(event, 2), null);
+
+        rsvp.setStatus(Rsvp.RsvpStatus.MAYBE);
+        eventCounterService.saveRsvp(rsvp, Rsvp.RsvpStatus.YES);
+
+        Event counted = eventRepository.findById(event.getId()).orElseThrow();
+        assertThat(counted.getYesCount()).isEqualTo(1);
+        assertThat(counted.getMaybeCount()).isEqualTo(1);
+        assertThat(counted.getNoCount()).isZero();
+        assertThat(findDrifted(event)).isEmpty();
+    }
+
+    @Test
+    void reconcileRecountsEventsWhoseCountersDrifted() {
+        // Written straight through the repository, so the counters never moved
+        Event drifted = TestData.createEvent(eventRepository, Event.CarpoolMode.NONE);
+        List<Rsvp> rsvps = TestData.seedRsvps(rsvpRepository, drifted, 6);
+        rsvps.get(0).setStatus(Rsvp.RsvpStatus.NO);
+        rsvpRepository.save(rsvps.get(0));
+
+        Event accurate = TestData.createEvent(eventRepository, Event.CarpoolMode.NONE);
+        eventCounterService.saveRsvp(TestData.rsvp(accurate, 1), null);
+
+        assertThat(findDrifted(drifted)).containsExactly(drifted.getId());
+        assertThat(findDrifted(accurate)).isEmpty();
+        double driftBefore = meterRegistry.counter("hangout.events.counters.drift").count();
+
+        eventCounterService.reconcile();
+
+        Event recounted = eventRepository.findById(drifted.getId()).orElseThrow();
+        assertThat(recounted.getYesCount()).isEqualTo(5);
+        assertThat(recounted.getNoCount()).isEqualTo(1);
+        assertThat(eventRepository.findById(accurate.getId()).orElseThrow().getYesCount()).isEqualTo(1);
+        assertThat(findDrifted(drifted)).isEmpty();
+        assertThat(meterRegistry.counter("hangout.events.counters.drift").count()).isGreaterThan(driftBefore);
+    }
+
+    private List<Long> findDrifted(Event event) {
+        return eventRepository.findEventIdsWithCounterDrift(event.getId() - 1, event.getId());
+    }
+}
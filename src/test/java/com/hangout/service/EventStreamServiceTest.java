@@ -0,0 +1,168 @@
+package com.hangout.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventStreamServiceTest {
+
+    private EventStreamService service;
+    private final List<TestEmitter> emitters = new ArrayList<>();
+
+    @BeforeEach
+    void startService() {
+        service = new EventStreamService();
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "bufferSize", 8);
+        ReflectionTestUtils.setField(service, "timeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(service, "heartbeat", Duration.ofHours(1));
+        ReflectionTestUtils.setField(service, "threads", 1);
+        ReflectionTestUtils.setField(service, "maxThreads", 8);
+        ReflectionTestUtils.setField(service, "sendTimeout", Duration.ofMillis(200));
+        ReflectionTestUtils.setField(service, "maxPerEvent", 3);
+        ReflectionTestUtils.setField(service, "maxPerClient", 2);
+        service.start();
+    }
+
+    @AfterEach
+    void stopService() {
+        emitters.forEach(TestEmitter::unblock);
+        service.stop();
+    }
+
+    @Test
+    void clientsThatStopReadingDoNotHoldUpOthers() throws Exception {
+        TestEmitter stuck1 = subscribe(1L, "10.0.0.1", true);
+        TestEmitter stuck2 = subscribe(1L, "10.0.0.2", true);
+        TestEmitter healthy = subscribe(1L, "10.0.0.3", false);
+
+        service.publish(1L, "rsvp", Map.of("rsvpId", 1));
+        assertThat(healthy.awaitSends(1)).isTrue();
+
+        // Both stuck sends outlast the send timeout and are dropped; the healthy one keeps going
+        assertThat(awaitSubscribers(1)).isTrue();
+        service.publish(1L, "rsvp", Map.of("rsvpId", 2));
+        assertThat(healthy.awaitSends(2)).isTrue();
+        assertThat(stuck1.sendsStarted.availablePermits()).isEqualTo(1);
+        assertThat(stuck2.sendsStarted.availablePermits()).isEqualTo(1);
+
+        // Their threads are released when the writes finally fail, and the emitters completed
+        stuck1.unblock();
+        stuck2.unblock();
+        assertThat(stuck1.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(stuck2.completed.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void streamsAreCappedPerEventAndPerClient() {
+        subscribe(1L, "10.0.0.1", false);
+        subscribe(1L, "10.0.0.2", false);
+        subscribe(1L, "10.0.0.3", false);
+        assertThatThrownBy(() -> subscribe(1L, "10.0.0.4", false))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        subscribe(2L, "10.0.0.1", false);
+        assertThatThrownBy(() -> subscribe(3L, "10.0.0.1", false))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+                .isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+
+        // A rejected stream does not use up the client's allowance
+        subscribe(3L, "10.0.0.4", false);
+        assertThat(service.getSubscriberCount()).isEqualTo(5);
+    }
+
+    @Test
+    void droppedStreamsGiveBackTheClientsAllowance() throws Exception {
+        subscribe(1L, "10.0.0.1", true);
+        subscribe(2L, "10.0.0.1", false);
+
+        service.publish(1L, "rsvp", Map.of("rsvpId", 1));
+        assertThat(awaitSubscribers(1)).isTrue();
+
+        subscribe(3L, "10.0.0.1", false);
+        assertThat(service.getSubscriberCount()).isEqualTo(2);
+    }
+
+    private TestEmitter subscribe(Long eventId, String client, boolean stuck) {
+        TestEmitter emitter = new TestEmitter(stuck);
+        service.register(eventId, client, emitter);
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    private boolean awaitSubscribers(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (service.getSubscriberCount() == count) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+
+    /** Records sends; a stuck emitter blocks in send like a client that stopped reading. */
+    private static class TestEmitter extends SseEmitter {
+        final boolean stuck;
+        final CountDownLatch unblocked = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+        final Semaphore sendsStarted = new Semaphore(0);
+        final Semaphore sendsFinished = new Semaphore(0);
+
+        TestEmitter(boolean stuck) {
+            this.stuck = stuck;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sendsStarted.release();
+            if (stuck) {
+                try {
+                    unblocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("Broken pipe");
+            }
+            sendsFinished.release();
+        }
+
+        @Override
+        public void complete() {
+            super.complete();
+            completed.countDown();
+        }
+
+        boolean awaitSends(int count) throws InterruptedException {
+            boolean done = sendsFinished.tryAcquire(count, 5, TimeUnit.SECONDS);
+            if (done) {
+                sendsFinished.release(count);
+            }
+            return done;
+        }
+
+        void unblock() {
+            unblocked.countDown();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.hangout.service;
+
+import com.hangout.model.Driver;
+import com.hangout.model.Rsvp;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.hangout.service.DriverSeatIndexTest.car;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OptimalCarpoolStrategyTest {
+
+    private static final LocalDateTime FIVE = LocalDateTime.of(2030, 6, 1, 17, 0);
+    private static final LocalDateTime SIX = FIVE.plusHours(1);
+
+    private final GreedyCarpoolStrategy greedy = new GreedyCarpoolStrategy();
+
+    @Test
+    void findsALowerTotalWaitThanGreedy() {
+        Driver early = car(1, FIVE, 1);
+        Driver late = car(2, SIX, 1);
+        // Greedy gives the first passenger the later car (25 min) and the second is left with the
+        // earlier one (65 min); swapping them costs 35 + 5 min
+        Rsvp first = passenger(FIVE.plusMinutes(35));
+        Rsvp second = passenger(SIX.plusMinutes(5));
+        List<Rsvp> passengers = List.of(first, second);
+
+        Map<Rsvp, Driver> greedyResult = greedy.assign(passengers, index(early, late));
+        Map<Rsvp, Driver> optimalResult = optimal(200, 8).assign(passengers, index(early, late));
+
+        assertThat(greedyResult.get(first)).isSameAs(late);
+        assertThat(optimalResult.get(first)).isSameAs(early);
+        assertThat(optimalResult.get(second)).isSameAs(late);
+        assertThat(totalWait(optimalResult)).isEqualTo(Duration.ofMinutes(40));
+        assertThat(totalWait(greedyResult)).isEqualTo(Duration.ofMinutes(90));
+    }
+
+    @Test
+    void neverSeatsFewerPassengersThanGreedyOrOverfillsACar() {
+        List<Driver> cars = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            cars.add(car(i + 1, FIVE.plusMinutes(17L * i), 1 + i % 4));
+        }
+        List<Rsvp> passengers = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            passengers.add(passenger(FIVE.plusMinutes((i * 37L) % 360)));
+        }
+        passengers.sort((a, b) -> a.getArrivalTime().compareTo(b.getArrivalTime()));
+
+        Map<Rsvp, Driver> greedyResult = greedy.assign(passengers, index(cars.toArray(new Driver[0])));
+        DriverSeatIndex seats = index(cars.toArray(new Driver[0]));
+        // Every car is a candidate for every passenger, so the flow is a true min-cost matching
+        Map<Rsvp, Driver> optimalResult = optimal(1_000, cars.size()).assign(passengers, seats);
+
+        assertThat(optimalResult).hasSameSizeAs(greedyResult);
+        assertThat(totalWait(optimalResult)).isLessThanOrEqualTo(totalWait(greedyResult));
+        for (Driver car : cars) {
+            long riders = optimalResult.values().stream().filter(driver -> driver == car).count();
+            assertThat(riders).isLessThanOrEqualTo(car.getCapacity());
+            assertThat(seats.remainingSeats(car)).isEqualTo(car.getCapacity() - (int) riders);
+        }
+    }
+
+    @Test
+    void outOfTimeFallsBackToGreedyForEveryone() {
+        Driver early = car(1, FIVE, 1);
+        Driver late = car(2, SIX, 1);
+        Rsvp first = passenger(FIVE.plusMinutes(35));
+        Rsvp second = passenger(SIX.plusMinutes(5));
+        List<Rsvp> passengers = List.of(first, second);
+
+        Map<Rsvp, Driver> result = optimal(0, 8).assign(passengers, index(early, late));
+
+        assertThat(result).containsExactlyEntriesOf(greedy.assign(passengers, index(early, late)));
+    }
+
+    private OptimalCarpoolStrategy optimal(long timeBudgetMs, int candidatesPerSide) {
+        OptimalCarpoolStrategy strategy = new OptimalCarpoolStrategy();
+        ReflectionTestUtils.setField(strategy, "greedyCarpoolStrategy", greedy);
+        ReflectionTestUtils.setField(strategy, "timeBudgetMs", timeBudgetMs);
+        ReflectionTestUtils.setField(strategy, "candidatesPerSide", candidatesPerSide);
+        return strategy;
+    }
+
+    private static DriverSeatIndex index(Driver... cars) {
+        DriverSeatIndex seats = new DriverSeatIndex();
+        for (Driver car : cars) {
+            seats.add(car, 0);
+        }
+        return seats;
+    }
+
+    private static Rsvp passenger(LocalDateTime arrival) {
+        Rsvp rsvp = new Rsvp();
+        rsvp.setStatus(Rsvp.RsvpStatus.YES);
+        rsvp.setArrivalTime(arrival);
+        return rsvp;
+    }
+
+    private static Duration totalWait(Map<Rsvp, Driver> assignments) {
+        Duration total = Duration.ZERO;
+        for (Map.Entry<Rsvp, Driver> entry : assignments.entrySet()) {
+            total = total.plus(Duration.between(entry.getKey().getArrivalTime(), entry.getValue().getDepartureTime()).abs());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,105 @@
+package com.hangout.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class RateLimiterTest {
+
+    private static final long INTERVAL = 100;
+    private static final long BURST = 3 * INTERVAL;
+
+    @Test
+    void bucketAllowsABurstThenOneTokenPerInterval() {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket();
+        long now = 1_000;
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(bucket.tryAcquire(now, INTERVAL, BURST)).isZero();
+        }
+        assertThat(bucket.tryAcquire(now, INTERVAL, BURST)).isEqualTo(INTERVAL);
+        assertThat(bucket.tryAcquire(now + 40, INTERVAL, BURST)).isEqualTo(INTERVAL - 40);
+
+        assertThat(bucket.tryAcquire(now + INTERVAL, INTERVAL, BURST)).isZero();
+        assertThat(bucket.tryAcquire(now + INTERVAL, INTERVAL, BURST)).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void idleBucketRefillsOnlyUpToItsCapacity() {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket();
+        assertThat(bucket.tryAcquire(0, INTERVAL, BURST)).isZero();
+
+        long later = 1_000_000;
+        for (int i = 0; i < 3; i++) {
+            assertThat(bucket.tryAcquire(later, INTERVAL, BURST)).isZero();
+        }
+        assertThat(bucket.tryAcquire(later, INTERVAL, BURST)).isPositive();
+    }
+
+    @Test
+    void concurrentCallersNeverTakeMoreThanTheBurst() throws Exception {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket();
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int taken = 0;
+                    for (int i = 0; i < 1_000; i++) {
+                        if (bucket.tryAcquire(5_000, INTERVAL, BURST) == 0) {
+                            taken++;
+                        }
+                    }
+                    return taken;
+                }));
+            }
+            start.countDown();
+            int taken = 0;
+            for (Future<Integer> future : futures) {
+                taken += future.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(taken).isEqualTo(3);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void checkThrowsWithRetryAfterOncePerKeyCapacityIsUsed() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("hangout.ratelimit.event-writes.capacity", "2");
+        RateLimiter rateLimiter = new RateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "environment", environment);
+        ReflectionTestUtils.setField(rateLimiter, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(rateLimiter, "enabled", true);
+        ReflectionTestUtils.setField(rateLimiter, "maxKeys", 100L);
+        rateLimiter.init();
+
+        rateLimiter.check(RateLimiter.Rule.EVENT_WRITES, 1L);
+        rateLimiter.check(RateLimiter.Rule.EVENT_WRITES, 1L);
+        RateLimiter.LimitedException limited = catchThrowableOfType(
+                () -> rateLimiter.check(RateLimiter.Rule.EVENT_WRITES, 1L), RateLimiter.LimitedException.class);
+
+        // Two per default one-minute period: one token every 30 seconds
+        assertThat(limited).isNotNull();
+        assertThat(Long.parseLong(limited.getHeaders().getFirst(HttpHeaders.RETRY_AFTER))).isBetween(1L, 30L);
+        // Other events have their own budget
+        assertThat(rateLimiter.tryAcquire(RateLimiter.Rule.EVENT_WRITES, 2L)).isZero();
+    }
+}
@@ -0,0 +1,133 @@
+package com.hangout.service;
+
+import com.hangout.TestData;
+import com.hangout.model.Event;
+import com.hangout.model.Rsvp;
+import com.hangout.repository.EventRepository;
+import com.hangout.repository.RsvpRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RsvpImportServiceTest {
+
+    @Autowired
+    private RsvpImportService rsvpImportService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private RsvpRepository rsvpRepository;
+
+    @Test
+    void csvWithQuotedFieldsAndHeaderAliases() throws IOException {
+        Event event = TestData.createEvent(eventRepository, Event.CarpoolMode.NONE);
+        String csv = "Name,EMAIL,Status,message,unknown\r\n"
+                + "Ann,ann@example.com,yes,\"Bringing chips, salsa\",x\r\n"
+                + "Bob,bob@example.com,maybe,\"Line one\nline two\",x\r\n"
+                + "\r\n"
+                + "Cy,,yes,,x\r\n"
+                + "Di,di@example.com,perhaps,,x\r\n";
+
+        RsvpImportService.ImportResult result = importCsv(event, csv);
+
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getRejected()).isEqualTo(2);
+        // Bob's quoted line break moves the following rows down a line
+        assertThat(result.getErrors()).containsExactly(
+                "line 6: guestEmail is required",
+                "line 7: status must be YES, MAYBE or NO");
+        assertThat(rsvpRepository.findByEventIdAndGuestEmail(event.getId(), "ann@example.com"))
+                .get().extracting(Rsvp::getMessage).isEqualTo("Bringing chips, salsa");
+        assertThat(rsvpRepository.findByEventIdAndGuestEmail(event.getId(), "bob@example.com"))
+                .get().extracting(Rsvp::getMessage).isEqualTo("Line one\nline two");
+    }
+
+    @Test
+    void guestTwiceInOneBatchIsCountedOnce() throws IOException {
+        Event event = TestData.createEvent(eventRepository, Event.CarpoolMode.NONE);
+        String csv = "guestName,guestEmail,status\n"
+                + "Ann,ann@example.com,YES\n"
+                + "Ann,ann@example.com,NO\n";
+
+        RsvpImportService.ImportResult first = importCsv(event, csv);
+        assertThat(first.getCreated()).isEqualTo(1);
+        assertThat(first.getUpdated()).isZero();
+
+        RsvpImportService.ImportResult second = importCsv(event, csv);
+        assertThat(second.getCreated()).isZero();
+        assertThat(second.getUpdated()).isEqualTo(1);
+
+        List<Rsvp> rsvps = rsvpRepository.findByEventId(event.getId());
+        assertThat(rsvps).singleElement().extracting(Rsvp::getStatus).isEqualTo(Rsvp.RsvpStatus.NO);
+        assertThat(eventRepository.findById(event.getId()).orElseThrow().getNoCount()).isEqualTo(1);
+    }
+
+    @Test
+    void fieldsLongerThanTheirColumnsAreRejected() throws IOException {
+        Event event = TestData.createEvent(eventRepository, Event.CarpoolMode.NONE);
+        String csv = "guestName,guestEmail,status,message\n"
+                + "x".repeat(256) + ",long@example.com,YES,\n"
+                + "Ann,ann@example.com,YES," + "m".repeat(256) + "\n"
+                + "Bob,bob@example.com,YES," + "m".repeat(2000) + "\n"
+                + "Cy,cy@example.com,YES," + "m".repeat(255) + "\n";
+
+        RsvpImportService.ImportResult result = importCsv(event, csv);
+
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getErrors()).containsExactly(
+                "line 2: guestName is longer than 255 characters",
+                "line 3: message is longer than 255 characters",
+                "line 4: Field longer than 1000 characters");
+    }
+
+    @Test
+    void csvRecordsWithTooManyFieldsAreRejectedAndParsingKeepsGoing() throws IOException {
+        Event event = TestData.createEvent(eventRepository, Event.CarpoolMode.NONE);
+        String csv = "guestName,guestEmail,status\n"
+                + "Ann,ann@example.com,YES" + ",".repeat(10_000) + "\n"
+                + "Bob,bob@example.com,YES\n";
+
+        RsvpImportService.ImportResult result = importCsv(event, csv);
+
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getErrors()).containsExactly("line 2: Record longer than 8192 characters");
+        assertThat(rsvpRepository.findByEventIdAndGuestEmail(event.getId(), "bob@example.com")).isPresent();
+    }
+
+    @Test
+    void ndjsonRejectsBadAndOverlongLinesAndKeepsGoing() throws IOException {
+        Event event = TestData.createEvent(eventRepository, Event.CarpoolMode.NONE);
+        String ndjson = "{\"guestName\":\"Ann\",\"guestEmail\":\"ann@example.com\",\"status\":\"YES\"}\n"
+                + "{not json\n"
+                + "\n"
+                + "{\"guestName\":\"" + "x".repeat(10_000) + "\",\"guestEmail\":\"big@example.com\",\"status\":\"YES\"}\n"
+                + "{\"guestName\":\"Bob\",\"guestEmail\":\"bob@example.com\",\"status\":\"no\",\"seats\":3}";
+
+        RsvpImportService.ImportResult result = rsvpImportService.importRsvps(event,
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), false, StandardCharsets.UTF_8);
+
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getErrors()).containsExactly(
+                "line 2: Not a valid JSON object",
+                "line 4: Line longer than 8192 characters");
+        assertThat(rsvpRepository.findByEventIdAndGuestEmail(event.getId(), "bob@example.com"))
+                .get().extracting(Rsvp::getSeats).isEqualTo(3);
+    }
+
+    private RsvpImportService.ImportResult importCsv(Event event, String csv) throws IOException {
+        return rsvpImportService.importRsvps(event,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), true, StandardCharsets.UTF_8);
+    }
+}
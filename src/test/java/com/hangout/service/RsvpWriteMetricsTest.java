@@ -0,0 +1,37 @@
+package com.hangout.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RsvpWriteMetricsTest {
+
+    @Test
+    void keepsAtMostMaxEventsSeriesAndRemovesEvictedOnes() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RsvpWriteMetrics metrics = new RsvpWriteMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", registry);
+        ReflectionTestUtils.setField(metrics, "maxEvents", 10L);
+        ReflectionTestUtils.setField(metrics, "idleExpiry", Duration.ofHours(1));
+        metrics.init();
+
+        for (long eventId = 1; eventId <= 500; eventId++) {
+            metrics.recordWrites(eventId, 1);
+        }
+        Cache<?, ?> counters = (Cache<?, ?>) ReflectionTestUtils.getField(metrics, "counters");
+        counters.cleanUp();
+
+        // Events keep getting series after the first ten, and the registry only holds the cached ones
+        int series = registry.find("hangout.rsvp.writes").counters().size();
+        assertThat(series).isLessThanOrEqualTo(10);
+        assertThat((long) series).isEqualTo(counters.estimatedSize());
+
+        metrics.recordWrites(1000L, 3);
+        assertThat(registry.find("hangout.rsvp.writes").tag("event", "1000").counter().count()).isEqualTo(3.0);
+    }
+}
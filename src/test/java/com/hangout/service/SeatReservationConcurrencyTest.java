@@ -0,0 +1,235 @@
+package com.hangout.service;
+
+import com.hangout.TestData;
+import com.hangout.model.Driver;
+import com.hangout.model.Event;
+import com.hangout.model.Rsvp;
+import com.hangout.repository.DriverRepository;
+import com.hangout.repository.EventRepository;
+import com.hangout.repository.RsvpRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guests racing for the last seat of a car, with each other and with a carpool run seating
+ * passengers into the same car. A car must never end up with more passengers than seats, and
+ * its seats_taken counter must match the passengers actually in it.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SeatReservationConcurrencyTest {
+
+    private static final int CAPACITY = 4;
+
+    @Autowired
+    private SeatReservationService seatReservationService;
+
+    @Autowired
+    private CarpoolService carpoolService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private RsvpRepository rsvpRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Test
+    void hundredsOfGuestsRaceForTheLastSeat() throws Exception {
+        Event event = TestData.createEvent(eventRepository, Event.CarpoolMode.AUTO);
+        Driver car = carWithDriver(event);
+        List<Rsvp> guests = passengers(event, 200 + CAPACITY);
+
+        // The driver and two guests leave exactly one seat
+        for (Rsvp guest : guests.subList(0, CAPACITY - 2)) {
+            assertThat(seatReservationService.joinCar(car, guest)).isEqualTo(SeatReservationService.JoinResult.JOINED);
+        }
+
+        List<Callable<SeatReservationService.JoinResult>> joins = new ArrayList<>();
+        for (Rsvp guest : guests.subList(CAPACITY - 2, guests.size())) {
+            joins.add(() -> seatReservationService.joinCar(car, guest));
+        }
+        List<SeatReservationService.JoinResult> results = runTogether(joins);
+
+        assertThat(results).filteredOn(result -> result == SeatReservationService.JoinResult.JOINED).hasSize(1);
+        assertThat(results).filteredOn(result -> result == SeatReservationService.JoinResult.FULL)
+                .hasSize(results.size() - 1);
+        assertCarConsistent(car);
+    }
+
+    @Test
+    void joinsRacingACarpoolRunNeverOverbook() throws Exception {
+        for (int round = 0; round < 5; round++) {
+            Event event = TestData.createEvent(eventRepository, Event.CarpoolMode.AUTO);
+            Driver car = carWithDriver(event);
+            List<Rsvp> guests = passengers(event, 40);
+
+            // The run wants to seat every new passenger while each of them also tries to join
+            Map<Long, CarpoolService.RsvpSnapshot> changes = new HashMap<>();
+            guests.forEach(guest -> changes.put(guest.getId(), CarpoolService.RsvpSnapshot.NONE));
+
+            List<Callable<Object>> tasks = new ArrayList<>();
+            tasks.add(() -> {
+                carpoolService.applyRsvpChanges(event, changes);
+                return null;
+            });
+            for (Rsvp guest : guests) {
+                tasks.add(() -> seatReservationService.joinCar(car, guest));
+            }
+            runTogether(tasks);
+
+            assertCarConsistent(car);
+            assertThat(driverRepository.findById(car.getId()).orElseThrow().getSeatsTaken()).isEqualTo(CAPACITY);
+        }
+    }
+
+    @Test
+    void leavesRacingACarpoolRunKeepTheCounterExact() throws Exception {
+        Event event = TestData.createEvent(eventRepository, Event.CarpoolMode.AUTO);
+        Driver car = carWithDriver(event);
+        List<Rsvp> seated = passengers(event, CAPACITY - 1);
+        for (Rsvp guest : seated) {
+            seatReservationService.joinCar(car, guest);
+        }
+        List<Rsvp> waiting = passengers(event, 20);
+
+        // Everyone in the car leaves while a run fills the freed seats from the waiting list
+        Map<Long, CarpoolService.RsvpSnapshot> changes = new HashMap<>();
+        waiting.forEach(guest -> changes.put(guest.getId(), CarpoolService.RsvpSnapshot.NONE));
+        List<Callable<Object>> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            carpoolService.applyRsvpChanges(event, changes);
+            return null;
+        });
+        for (Rsvp guest : seated) {
+            tasks.add(() -> seatReservationService.leaveCar(car.getId(), guest));
+        }
+        runTogether(tasks);
+
+        assertCarConsistent(car);
+    }
+
+    @Test
+    void joinsDoNotWaitForARunInProgress() throws Exception {
+        Event event = TestData.createEvent(eventRepository, Event.CarpoolMode.AUTO);
+        Driver car = carWithDriver(event);
+        for (Rsvp guest : passengers(event, CAPACITY - 2)) {
+            seatReservationService.joinCar(car, guest);
+        }
+        Rsvp queued = passengers(event, 1).get(0);
+        Rsvp joining = passengers(event, 1).get(0);
+
+        // Hold the run just before it seats anyone; it has already read the one free seat
+        CountDownLatch assigning = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CarpoolStrategy strategy = carpoolService.strategyFor(event);
+        carpoolService.setStrategies(List.of(new CarpoolStrategy() {
+            @Override
+            public Event.CarpoolAlgorithm algorithm() {
+                return strategy.algorithm();
+            }
+
+            @Override
+            public Map<Rsvp, Driver> assign(List<Rsvp> passengers, DriverSeatIndex seats) {
+                assigning.countDown();
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return strategy.assign(passengers, seats);
+            }
+        }));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> run = executor.submit(() ->
+                    carpoolService.applyRsvpChanges(event, Map.of(queued.getId(), CarpoolService.RsvpSnapshot.NONE)));
+            assertThat(assigning.await(10, TimeUnit.SECONDS)).isTrue();
+
+            Future<SeatReservationService.JoinResult> join = executor.submit(() -> seatReservationService.joinCar(car, joining));
+            assertThat(join.get(5, TimeUnit.SECONDS)).isEqualTo(SeatReservationService.JoinResult.JOINED);
+
+            // The run finds the seat gone and leaves its passenger waiting
+            release.countDown();
+            run.get(30, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+            carpoolService.setStrategies(List.of(strategy));
+        }
+
+        assertThat(rsvpRepository.findById(queued.getId()).orElseThrow().getDriver()).isNull();
+        assertCarConsistent(car);
+        assertThat(driverRepository.findById(car.getId()).orElseThrow().getSeatsTaken()).isEqualTo(CAPACITY);
+        assertThat(eventRepository.findById(event.getId()).orElseThrow().getSeatsTaken()).isEqualTo(CAPACITY);
+    }
+
+    private Driver carWithDriver(Event event) {
+        Rsvp driver = TestData.rsvp(event, 0);
+        driver.setIsDriver(true);
+        driver.setSeats(CAPACITY);
+        rsvpRepository.save(driver);
+        carpoolService.autoAssignCarpools(event);
+        List<Driver> cars = driverRepository.findByEventIdOrderByDepartureTimeAsc(event.getId());
+        assertThat(cars).hasSize(1);
+        return cars.get(0);
+    }
+
+    private List<Rsvp> passengers(Event event, int count) {
+        int first = (int) rsvpRepository.count() + 1;
+        List<Rsvp> rsvps = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Rsvp rsvp = TestData.rsvp(event, first + i);
+            rsvp.setIsDriver(false);
+            rsvps.add(rsvp);
+        }
+        return rsvpRepository.saveAll(rsvps);
+    }
+
+    private void assertCarConsistent(Driver car) {
+        int passengers = rsvpRepository.findByDriverIdOrderByRespondedAtAsc(car.getId()).size();
+        int seatsTaken = driverRepository.findById(car.getId()).orElseThrow().getSeatsTaken();
+        assertThat(passengers).isLessThanOrEqualTo(CAPACITY);
+        assertThat(seatsTaken).isEqualTo(passengers);
+    }
+
+    /** Starts every task at the same moment and waits for all of them. */
+    private static <T> List<T> runTogether(List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
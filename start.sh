@@ -1,2 +1,8 @@
 #!/bin/sh
+# FAST_START=true runs from the unpacked classpath with the class data archive made at image
+# build time, and creates non-critical beans on first use instead of during startup
+if [ "$FAST_START" = "true" ]; then
+    exec java -XX:SharedArchiveFile=/app/app.jsa -Dspring.main.lazy-initialization=true \
+        -Dserver.port=${PORT:-8080} -cp "/app/lib/*" com.hangout.HangoutApplication
+fi
 exec java -Dserver.port=${PORT:-8080} -jar /app/app.jar